@@ -19,6 +19,7 @@ module org.example.eventbookingsystem {
 
     exports org.example.eventbookingsystem.controller;
     exports org.example.eventbookingsystem.model;
+    exports org.example.eventbookingsystem.repository;
     exports org.example.eventbookingsystem.utilities;
 
     exports org.example.eventbookingsystem;
@@ -4,7 +4,11 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.example.eventbookingsystem.controller.CartWriteBehind;
+import org.example.eventbookingsystem.controller.SeatHoldSweeper;
+import org.example.eventbookingsystem.utilities.AsyncDB;
 import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.utilities.Log;
 
 import java.io.IOException;
 
@@ -12,6 +16,8 @@ public class HelloApplication extends Application {
     @Override
     public void start(Stage stage) throws IOException {
         DBUtil.initializeDatabase();
+        SeatHoldSweeper.getInstance().start();
+        CartWriteBehind.getInstance().start();
         FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("/org/example/eventbookingsystem/login_signup.fxml"));
         Scene scene = new Scene(fxmlLoader.load());
         stage.setTitle("Event Booking System");
@@ -19,6 +25,19 @@ public class HelloApplication extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Release pooled database connections so the WAL is checkpointed on exit
+        SeatHoldSweeper.getInstance().stop();
+        // Lets running checkouts and cart changes finish; what they journal is written by the stop below
+        AsyncDB.shutdown();
+        // Before the pool closes, so journaled cart changes are written
+        CartWriteBehind.getInstance().stop();
+        DBUtil.shutdown();
+        // Last, so everything logged while shutting down still reaches the file
+        Log.shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
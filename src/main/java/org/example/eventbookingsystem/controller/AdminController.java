@@ -1,5 +1,6 @@
 package org.example.eventbookingsystem.controller;
 
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -7,17 +8,22 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
-import org.example.eventbookingsystem.model.CartItem;
 import org.example.eventbookingsystem.model.Event;
-import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.model.EventRegistry;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.repository.OrderRepository;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
 import org.example.eventbookingsystem.utilities.Session;
-import java.sql.*;
+import org.example.eventbookingsystem.utilities.UiTasks;
+import java.sql.SQLException;
 import java.util.*;
 
 public class AdminController {
 
+    private static final Log log = Log.get(AdminController.class);
+
     // UI elements from FXML
     @FXML private TableView<GroupedEvent> groupedEventTable;
     @FXML private TableColumn<GroupedEvent, String> nameColumn;
@@ -27,105 +33,144 @@ public class AdminController {
     @FXML private TableView<Event> eventTable;
     @FXML private TextField nameField, venueField, dayField, priceField, capacityField;
     @FXML private Button logoutButton;
+    @FXML private TableView<EventSalesRow> salesTable;
+    @FXML private TableColumn<EventSalesRow, String> salesEventColumn;
+    @FXML private TableColumn<EventSalesRow, String> salesTicketsColumn;
+    @FXML private TableColumn<EventSalesRow, String> salesRevenueColumn;
+    @FXML private TableColumn<EventSalesRow, String> salesSellThroughColumn;
+    @FXML private TableColumn<EventSalesRow, String> salesThisHourColumn;
 
     // Used to keep track of event name to ID mapping
     private final Map<String, Integer> eventNameToId = new HashMap<>();
+    private final UiTasks tasks = new UiTasks();
 
     // Called automatically when this controller is initialized
     @FXML
     public void initialize() {
-        System.out.println("Admin dashboard initialized.");
+        log.info("Admin dashboard initialized.");
+        tasks.attach(groupedEventTable);
 
         // Bind table columns to GroupedEvent properties
-        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        detailsColumn.setCellValueFactory(new PropertyValueFactory<>("details"));
-        statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
+        nameColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getName()));
+        detailsColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getDetails()));
+        statusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getStatus()));
+
+        salesEventColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().event()));
+        salesTicketsColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().tickets()));
+        salesRevenueColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().revenue()));
+        salesSellThroughColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().sellThrough()));
+        salesThisHourColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().thisHour()));
 
         handleRowDoubleClick();  // Set double-click listener
         loadGroupedEvents();     // Load all events
+        loadSales();             // Load sales totals
+    }
+
+    // Called when admin clicks "Refresh Sales"
+    @FXML
+    private void handleRefreshSales() {
+        loadSales();
+    }
+
+    // Reads the sales summary in the background; a refresh clicked while one is loading replaces it
+    private void loadSales() {
+        tasks.runLatest("sales", this::readSales, rows -> salesTable.setItems(FXCollections.observableArrayList(rows)),
+                e -> log.error("Failed to load sales summary", e));
     }
 
-    // Load all events and group them logically for display
+    // Runs on a background thread; totals come from the order repository and names and capacity from the catalog
+    private List<EventSalesRow> readSales() throws SQLException {
+        List<EventSalesRow> rows = new ArrayList<>();
+        for (OrderRepository.EventSales sales : Repositories.getInstance().orders().salesByEvent(CartManager.getInstance().getCurrentTimestamp())) {
+            Event event = EventCatalog.getInstance().getEvent(sales.eventId());
+            String label = event == null
+                    ? "Deleted event #" + sales.eventId()
+                    : event.getName() + " - " + event.getVenue() + " - " + event.getDay();
+            double sellThrough = sales.sellThrough(event == null ? 0 : event.getTotalTickets());
+            rows.add(new EventSalesRow(label,
+                    String.valueOf(sales.tickets()),
+                    sales.revenue().format(),
+                    sellThrough < 0 ? "-" : String.format("%.1f%%", sellThrough * 100),
+                    String.valueOf(sales.ticketsThisHour())));
+        }
+        return rows;
+    }
+
+    // Load all events in the background and group them logically for display
     private void loadGroupedEvents() {
-        System.out.println("Loading grouped events for admin table...");
+        log.info("Loading grouped events for admin table...");
+        tasks.runLatest("events", this::readGroupedEvents, groupedEvents -> {
+            eventNameToId.clear();
+            for (GroupedEvent groupedEvent : groupedEvents) {
+                eventNameToId.put(groupedEvent.getActualName(), groupedEvent.getId());
+            }
+            groupedEventTable.setItems(FXCollections.observableArrayList(groupedEvents));
+        });
+    }
 
-        ObservableList<GroupedEvent> groupedEvents = FXCollections.observableArrayList();
-        eventNameToId.clear();
+    // Runs on a background thread; events come from the catalog rather than a fresh query
+    private List<GroupedEvent> readGroupedEvents() throws SQLException {
+        List<GroupedEvent> groupedEvents = new ArrayList<>();
 
         // Step 1: Track disabled events for cart cleanup
-        List<String> disabledKeys = new ArrayList<>(); // key: name + venue + day
-
-        String sql = "SELECT id, name, venue, day, enabled FROM events ORDER BY name, venue, day";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            String lastName = "";
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String name = rs.getString("name");
-                String venue = rs.getString("venue");
-                String day = rs.getString("day");
-                boolean enabled = rs.getBoolean("enabled");
-
-                String venueDay = venue + " - " + day;
-                String status = enabled ? "Enabled" : "Disabled";
-                String displayName = name.equals(lastName) ? "" : name;
-                lastName = name;
-
-                groupedEvents.add(new GroupedEvent(id, name, displayName, venueDay, status));
-                eventNameToId.put(name, id);
-
-                // Collect disabled event composite key
-                if (!enabled) {
-                    disabledKeys.add(name + "|" + venue + "|" + day);
-                }
-            }
+        Set<Integer> disabledIds = new HashSet<>();
 
-            groupedEventTable.setItems(groupedEvents);
-
-            // Step 2: Remove disabled events from all carts
-            for (String username : CartManager.getInstance().getAllUsers()) {
-                List<CartItem> items = new ArrayList<>(CartManager.getInstance().getCartItems(username)); // safe iteration
-                for (CartItem item : items) {
-                    String key = item.getEvent().getName() + "|" + item.getEvent().getVenue() + "|" + item.getEvent().getDay();
-                    if (disabledKeys.contains(key)) {
-                        System.out.println(key);
-                        CartManager.getInstance().removeItemFromCartByComposite(username, item);
-                        System.out.println("Removed disabled event from cart of user: " + username);
-                    }
-                }
+        List<Event> events = new ArrayList<>(EventCatalog.getInstance().getAllEvents());
+        events.sort(Comparator.comparing(Event::getName).thenComparing(Event::getVenue).thenComparing(Event::getDay));
+
+        String lastName = "";
+        for (Event event : events) {
+            int id = event.getId();
+            String name = event.getName();
+            boolean enabled = event.isEnabled();
+
+            String venueDay = event.getVenue() + " - " + event.getDay();
+            String status = enabled ? "Enabled" : "Disabled";
+            String displayName = name.equals(lastName) ? "" : name;
+            lastName = name;
+
+            groupedEvents.add(new GroupedEvent(id, name, displayName, venueDay, status));
+
+            // Collect disabled event ids
+            if (!enabled) {
+                disabledIds.add(id);
             }
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        // Step 2: Remove disabled events from the carts holding them
+        for (int disabledId : disabledIds) {
+            int dropped = CartManager.getInstance().dropEventFromLoadedCarts(disabledId);
+            if (dropped > 0) {
+                log.info("Removed disabled event " + disabledId + " from " + dropped + " carts");
+            }
         }
+        return groupedEvents;
     }
 
 
     // Called when admin clicks "Add Event"
     @FXML
     private void handleAddEvent() {
-        System.out.println("Attempting to add a new event...");
+        log.info("Attempting to add a new event...");
 
         String name = nameField.getText().trim();
         String venue = venueField.getText().trim();
         String day = dayField.getText().trim();
-        double price;
+        Money price;
         int capacity;
 
         try {
-            price = Double.parseDouble(priceField.getText().trim());
+            price = Money.parse(priceField.getText().trim());
             capacity = Integer.parseInt(capacityField.getText().trim());
-            if (price <= 0) {
-                System.out.println("Price must be greater than 0.");
+            if (!price.isPositive()) {
+                log.warn("Price must be greater than 0.");
                 showAlert(Alert.AlertType.ERROR, "Validation Error", "Price and capacity must be greater than 0.");
 
                 return;
             }
 
             if (capacity <= 0) {
-                System.out.println("Capacity must be greater than 0.");
+                log.warn("Capacity must be greater than 0.");
                 return;
             }
         } catch (NumberFormatException e) {
@@ -134,7 +179,7 @@ public class AdminController {
         }
         List<String> validDays = Arrays.asList("Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun");
         if (!validDays.contains(day)) {
-            System.out.println("Invalid day. Please enter a valid day abbreviation (e.g., Mon, Tue, Wed...).");
+            log.warn("Invalid day. Please enter a valid day abbreviation (e.g., Mon, Tue, Wed...).");
             showAlert(Alert.AlertType.ERROR, "Validation Error", "Day must be a valid short day (Mon to Sun).");
             return;
         }
@@ -144,41 +189,31 @@ public class AdminController {
         }
 
 
-        String checkSQL = "SELECT COUNT(*) FROM events WHERE name = ? AND venue = ? AND day = ?";
-        String insertSQL = "INSERT INTO events (name, venue, day, price, soldTickets, totalTickets, enabled) VALUES (?, ?, ?, ?, 0, ?, 1)";
-
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkSQL)) {
-
-            checkStmt.setString(1, name);
-            checkStmt.setString(2, venue);
-            checkStmt.setString(3, day);
-
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next() && rs.getInt(1) > 0) {
+        tasks.run(() -> insertEvent(name, venue, day, price, capacity), added -> {
+            if (!added) {
                 showAlert("Duplicate", "This event already exists.");
                 return;
             }
-
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSQL)) {
-                insertStmt.setString(1, name);
-                insertStmt.setString(2, venue);
-                insertStmt.setString(3, day);
-                insertStmt.setDouble(4, price);
-                insertStmt.setInt(5, capacity);
-                insertStmt.executeUpdate();
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Event added successfully.");
-
-                System.out.println("Event added: " + name + " at " + venue + " on " + day);
-            }
+            showAlert(Alert.AlertType.INFORMATION, "Success", "Event added successfully.");
+            log.info("Event added: " + name + " at " + venue + " on " + day);
 
             clearInputs();
             loadGroupedEvents();
-        } catch (Exception e) {
+        }, e -> {
             showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to add event. Please try again.");
 
-            e.printStackTrace();
+            log.error("Failed to add event", e);
+        });
+    }
+
+    // Runs on a background thread; returns false if the event already exists
+    private boolean insertEvent(String name, String venue, String day, Money price, int capacity) throws SQLException {
+        if (!Repositories.getInstance().events().addIfAbsent(name, venue, day, price, capacity)) {
+            return false;
         }
+        // The new row's id is not known here, so let the catalog reload everything once
+        EventCatalog.getInstance().invalidateAll();
+        return true;
     }
 
     // Called when admin clicks "Delete Event"
@@ -196,15 +231,18 @@ public class AdminController {
         alert.setContentText("Bookings for this event will remain. Do you want to proceed?");
         alert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try (Connection conn = DBUtil.getConnection();
-                     PreparedStatement stmt = conn.prepareStatement("DELETE FROM events WHERE id = ?")) {
-                    stmt.setInt(1, id);
-                    stmt.executeUpdate();
-                    System.out.println("Event deleted with ID: " + id);
+                tasks.run(() -> {
+                    // Carted seats for a deleted event can never be checked out, so release them first
+                    CartManager.getInstance().removeEventFromAllCarts(id);
+                    Repositories.getInstance().events().delete(id);
+                    InventoryManager.getInstance().invalidate(id);
+                    EventCatalog.getInstance().invalidate(id);
+                    EventRegistry.getInstance().forget(id);
+                    return null;
+                }, done -> {
+                    log.info("Event deleted with ID: " + id);
                     loadGroupedEvents();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+                });
             }
         });
     }
@@ -219,28 +257,21 @@ public class AdminController {
             return;
         }
 
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("UPDATE events SET enabled = false WHERE id = ?")) {
-            stmt.setInt(1, selected.getId());
-            stmt.executeUpdate();
-            System.out.println("Event disabled in database.");
-
-            // Cleanup from all carts
-            String name = selected.getActualName();
-            String[] venueDay = selected.getDetails().split(" - ");
-            String venue = venueDay[0];
-
-            String day = venueDay[1];
-            System.out.println("name= "+name+" venue= "+venue+" day= "+day);
-            CartManager.getInstance().preloadAllUserCarts();
-            CartManager.getInstance().removeEventFromAllCarts(name, venue, day);
-
+        int id = selected.getId();
+        tasks.run(() -> {
+            setEnabled(id, false);
+            log.info("Event disabled in database.");
+
+            // Cleanup from the carts holding it; carts not in memory are cleaned in the database
+            CartManager.getInstance().removeEventFromAllCarts(id);
+            return null;
+        }, done -> {
             loadGroupedEvents(); // refresh table
             showAlert("Event disabled and removed from all carts.");
-        } catch (Exception e) {
-            e.printStackTrace();
+        }, e -> {
+            log.error("Failed to disable event", e);
             showAlert("Failed to disable event.");
-        }
+        });
     }
 
     // Helper to enable/disable selected event
@@ -249,16 +280,20 @@ public class AdminController {
         if (selected == null) return;
 
         int id = selected.getId();
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("UPDATE events SET enabled = ? WHERE id = ?")) {
-            stmt.setBoolean(1, enable);
-            stmt.setInt(2, id);
-            stmt.executeUpdate();
-            System.out.println("Event " + (enable ? "enabled" : "disabled") + " with ID: " + id);
-            System.out.println("Removed event from all user carts in memory.");loadGroupedEvents();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        tasks.run(() -> {
+            setEnabled(id, enable);
+            return null;
+        }, done -> {
+            log.info("Event " + (enable ? "enabled" : "disabled") + " with ID: " + id);
+            loadGroupedEvents();
+        });
+    }
+
+    // Runs on a background thread
+    private void setEnabled(int id, boolean enable) throws SQLException {
+        Repositories.getInstance().events().setEnabled(id, enable);
+        InventoryManager.getInstance().invalidate(id);
+        EventCatalog.getInstance().invalidate(id);
     }
 
     // Logs out the admin and returns to login screen
@@ -276,9 +311,9 @@ public class AdminController {
             Stage currentStage = (Stage) logoutButton.getScene().getWindow();
             currentStage.close();
             Session.clear();
-            System.out.println("Admin logged out.");
+            log.info("Admin logged out.");
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to log out admin", e);
         }
     }
 
@@ -324,6 +359,10 @@ public class AdminController {
 
     }
 
+    // One line of the sales table, already formatted for display
+    public record EventSalesRow(String event, String tickets, String revenue, String sellThrough, String thisHour) {
+    }
+
     // Opens the full order view window
     @FXML
     private void handleViewAllOrders() {
@@ -334,9 +373,9 @@ public class AdminController {
             stage.setTitle("All Orders");
             stage.setScene(new Scene(root));
             stage.show();
-            System.out.println("Opened All Orders View");
+            log.info("Opened All Orders View");
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to open All Orders View", e);
         }
     }
 
@@ -346,59 +385,26 @@ public class AdminController {
         groupedEventTable.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && !groupedEventTable.getSelectionModel().isEmpty()) {
                 GroupedEvent selected = groupedEventTable.getSelectionModel().getSelectedItem();
-                int id = getEventIdFromSelectedRow(selected);
-                System.out.println("Opening edit popup for event ID: " + id);
-                openEditPopup(id);
+                tasks.read(() -> readEvent(selected.getId()), this::openEditPopup);
             }
         });
     }
 
-    // Helper to get event ID based on selected row values
-    private int getEventIdFromSelectedRow(GroupedEvent selected) {
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT id FROM events WHERE name = ? AND venue = ? AND day = ?")) {
-            String[] venueDay = selected.getDetails().split(" - ");
-            stmt.setString(1, selected.getActualName());
-            stmt.setString(2, venueDay[0]);
-            stmt.setString(3, venueDay[1]);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) return rs.getInt("id");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return -1;
+    // Looks up current event data for the edit form; runs on a background thread
+    private Event readEvent(int eventId) throws SQLException {
+        Event event = EventCatalog.getInstance().getEvent(eventId);
+        return event != null ? event : new Event(eventId, "", "", "", Money.ZERO, 0, 0, false);
     }
 
     // Opens the event edit form with current event data
-    private void openEditPopup(int eventId) {
-        String name = "", venue = "", day = "";
-        double price = 0;
-        int totalTickets = 0;
-        int soldTickets = 0;
-
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM events WHERE id = ?")) {
-
-            stmt.setInt(1, eventId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                name = rs.getString("name");
-                venue = rs.getString("venue");
-                day = rs.getString("day");
-                price = rs.getDouble("price");
-                totalTickets = rs.getInt("totalTickets");
-                soldTickets=rs.getInt("soldTickets");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
-        }
-
+    private void openEditPopup(Event event) {
+        log.info("Opening edit popup for event ID: " + event.getId());
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/eventbookingsystem/EditEvent.fxml"));
             Parent root = loader.load();
             EditEventController controller = loader.getController();
-            controller.setEventDetails(eventId, name, venue, day, price, totalTickets,soldTickets);
+            controller.setEventDetails(event.getId(), event.getName(), event.getVenue(), event.getDay(),
+                    event.getPrice(), event.getTotalTickets(), event.getSoldTickets());
 
             Stage stage = new Stage();
             stage.setTitle("Edit Event");
@@ -407,7 +413,7 @@ public class AdminController {
 
             loadGroupedEvents();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to open edit popup", e);
         }
     }
     private void showAlert(Alert.AlertType type, String title, String message) {
@@ -1,21 +1,21 @@
 package org.example.eventbookingsystem.controller;
 
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import org.example.eventbookingsystem.model.Money;
 import org.example.eventbookingsystem.model.Order;
-import org.example.eventbookingsystem.utilities.DBUtil;
-
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.sql.*;
-import java.util.*;
+import org.example.eventbookingsystem.repository.OrderRepository;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.KeysetPager;
+import org.example.eventbookingsystem.utilities.Log;
+import org.example.eventbookingsystem.utilities.UiTasks;
 
 public class AdminOrderController {
 
+    private static final Log log = Log.get(AdminOrderController.class);
+
     // Table and column bindings for the admin's full order view
     @FXML private TableView<Order> orderTable;
     @FXML private TableColumn<Order, String> usernameColumn;
@@ -23,9 +23,21 @@ public class AdminOrderController {
     @FXML private TableColumn<Order, String> eventNameColumn;
     @FXML private TableColumn<Order, String> venueColumn;
     @FXML private TableColumn<Order, String> dayColumn;
-    @FXML private TableColumn<Order, Integer> quantityColumn;
-    @FXML private TableColumn<Order, Double> totalPriceColumn;
+    @FXML private TableColumn<Order, Number> quantityColumn;
+    @FXML private TableColumn<Order, Money> totalPriceColumn;
     @FXML private TableColumn<Order, String> dateTimeColumn;
+    @FXML private Label countLabel;
+    @FXML private ProgressBar exportProgress;
+    @FXML private Button cancelExportButton;
+
+    // Rows before the end of the loaded orders at which the next page is requested
+    private static final int PREFETCH_ROWS = 20;
+
+    private final UiTasks tasks = new UiTasks();
+    private KeysetPager<Order> pager;
+    private OrderExportDialog exportDialog;
+    // Total from the order counter, -1 until it has been read
+    private long totalOrders = -1;
 
     /**
      * Called automatically when the Admin Order window is loaded.
@@ -33,57 +45,52 @@ public class AdminOrderController {
      */
     @FXML
     public void initialize() {
-        System.out.println("AdminOrderController: Initializing the Admin Order window...");
+        log.info("AdminOrderController: Initializing the Admin Order window...");
+        tasks.attach(orderTable);
+        exportDialog = new OrderExportDialog(tasks, exportProgress, cancelExportButton);
 
         // Binding each column in the table to corresponding Order properties
-        usernameColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("username"));
-        orderNumberColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("orderNumber"));
-        eventNameColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("eventName"));
-        venueColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("venue"));
-        dayColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("day"));
-        quantityColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("quantity"));
-        totalPriceColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("totalPrice"));
-        dateTimeColumn.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("dateTime"));
-
-        // Now load all the orders from the database into the table
+        usernameColumn.setCellValueFactory(cell -> cell.getValue().usernameProperty());
+        orderNumberColumn.setCellValueFactory(cell -> cell.getValue().orderNumberProperty());
+        eventNameColumn.setCellValueFactory(cell -> cell.getValue().eventNameProperty());
+        venueColumn.setCellValueFactory(cell -> cell.getValue().venueProperty());
+        dayColumn.setCellValueFactory(cell -> cell.getValue().dayProperty());
+        quantityColumn.setCellValueFactory(cell -> cell.getValue().quantityProperty());
+        totalPriceColumn.setCellValueFactory(cell -> cell.getValue().totalPriceProperty());
+        dateTimeColumn.setCellValueFactory(cell -> cell.getValue().dateTimeProperty());
+
+        // Orders of every user, a page at a time while the admin scrolls
+        pager = new KeysetPager<>(tasks, (last, limit) -> Repositories.getInstance().orders().findPageAfter(null, last, limit),
+                OrderRepository.PAGE_SIZE, PREFETCH_ROWS);
+        pager.bind(orderTable);
         loadAllOrders();
     }
 
     /**
-     * Fetches all orders from the database and populates them in the admin's order table.
+     * Starts showing every order, newest first. Only the first page is read now; the rest load
+     * in the background as the admin scrolls, so the window opens quickly however many orders there are.
      */
     private void loadAllOrders() {
-        System.out.println("Fetching all order records from the database...");
-        String query = "SELECT * FROM orders ORDER BY dateTime DESC";
-        List<Order> orders = new ArrayList<>();
-
-        try (Connection conn = DBUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-
-            while (rs.next()) {
-                // Creating Order objects from the result set and adding them to the list
-                Order order = new Order(
-                        rs.getString("orderNumber"),
-                        rs.getString("username"),
-                        rs.getString("eventName"),
-                        rs.getString("venue"),
-                        rs.getString("day"),
-                        rs.getInt("quantity"),
-                        rs.getDouble("totalPrice"),
-                        rs.getString("dateTime")
-                );
-                orders.add(order);
+        log.info("Loading the first page of all orders...");
+        orderTable.setPlaceholder(new Label("Loading orders..."));
+        pager.exhaustedProperty().addListener((obs, wasDone, done) -> {
+            if (done && pager.getItems().isEmpty()) {
+                orderTable.setPlaceholder(new Label("No orders yet."));
             }
+        });
+        pager.getItems().addListener((ListChangeListener<Order>) change -> updateCountLabel());
+        pager.reload();
+        tasks.read(() -> Repositories.getInstance().orders().count(null), count -> {
+            totalOrders = count;
+            updateCountLabel();
+        }, error -> log.error("Error while counting orders", error));
+    }
 
-            // Displaying orders in the UI table
-            orderTable.getItems().setAll(orders);
-            System.out.println("Loaded " + orders.size() + " orders into the admin order table.");
-
-        } catch (SQLException e) {
-            System.out.println("Error while loading orders: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private void updateCountLabel() {
+        int loaded = pager.getItems().size();
+        countLabel.setText(totalOrders < 0
+                ? loaded + " orders"
+                : "Showing " + loaded + " of " + totalOrders + " orders");
     }
 
     /**
@@ -91,60 +98,25 @@ public class AdminOrderController {
      */
     @FXML
     private void handleClose() {
-        System.out.println("Admin clicked Close - closing the Admin Order window.");
+        log.info("Admin clicked Close - closing the Admin Order window.");
         Stage stage = (Stage) orderTable.getScene().getWindow();
         stage.close();
     }
     /**
-     * Handles the export button click — allows admin to save the order list to a text file.
+     * Handles the export button click — saves every order as CSV or JSON Lines.
+     * Orders stream from the database in the background, including rows not scrolled to yet.
      */
     @FXML
     private void handleExportAllOrders() {
-        FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Save Orders to File");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
-        fileChooser.setInitialFileName("all_orders.txt");
-
-        File selectedFile = fileChooser.showSaveDialog(orderTable.getScene().getWindow());
-
-        if (selectedFile != null) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(selectedFile))) {
-                for (Order order : orderTable.getItems()) {
-                    writer.write("Order Number: " + order.getOrderNumber());
-                    writer.newLine();
-                    writer.write("Username: " + order.getUsername());
-                    writer.newLine();
-                    writer.write("Event: " + order.getEventName());
-                    writer.newLine();
-                    writer.write("Venue: " + order.getVenue());
-                    writer.newLine();
-                    writer.write("Day: " + order.getDay());
-                    writer.newLine();
-                    writer.write("Quantity: " + order.getQuantity());
-                    writer.newLine();
-                    writer.write("Total Price: $" + String.format("%.2f", order.getTotalPrice()));
-                    writer.newLine();
-                    writer.write("Date & Time: " + order.getDateTime());
-                    writer.newLine();
-                    writer.write("--------------------------------------------------");
-                    writer.newLine();
-                }
-
-                Alert success = new Alert(Alert.AlertType.INFORMATION);
-                success.setTitle("Export Complete");
-                success.setHeaderText(null);
-                success.setContentText("All orders have been exported successfully.");
-                success.showAndWait();
-
-            } catch (IOException e) {
-                e.printStackTrace();
-                Alert error = new Alert(Alert.AlertType.ERROR);
-                error.setTitle("Export Failed");
-                error.setHeaderText(null);
-                error.setContentText("Could not export orders: " + e.getMessage());
-                error.showAndWait();
-            }
-        }
+        exportDialog.start(orderTable.getScene().getWindow(), null, "all_orders");
     }
 
+    /**
+     * Handles the "Export New Orders" button — appends only the orders placed since the last export
+     * to a directory of segment files, for nightly reconciliation.
+     */
+    @FXML
+    private void handleExportNewOrders() {
+        exportDialog.startIncremental(orderTable.getScene().getWindow());
+    }
 }
@@ -7,21 +7,26 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import org.example.eventbookingsystem.model.CartItem;
-import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.Money;
 import org.example.eventbookingsystem.model.User;
-import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.utilities.ListDiff;
+import org.example.eventbookingsystem.utilities.Log;
 import org.example.eventbookingsystem.utilities.Session;
+import org.example.eventbookingsystem.utilities.UiTasks;
 
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class CartController {
+
+    private static final Log log = Log.get(CartController.class);
+
     @FXML
     private VBox root;
     @FXML
@@ -31,11 +36,11 @@ public class CartController {
     @FXML
     private TableColumn<CartItem, String> venueColumn;
     @FXML
-    private TableColumn<CartItem, Integer> quantityColumn;
+    private TableColumn<CartItem, Number> quantityColumn;
     @FXML
-    private TableColumn<CartItem, Double> totalPriceColumn;
+    private TableColumn<CartItem, Money> totalPriceColumn;
     @FXML
-    private TableColumn<CartItem, Double> priceColumn;
+    private TableColumn<CartItem, Money> priceColumn;
     @FXML
     private Label totalAmountLabel;
     @FXML
@@ -43,6 +48,14 @@ public class CartController {
     @FXML
     private TableColumn<CartItem, String> dayColumn;
     private EventController eventController;
+    private final Consumer<Set<Integer>> holdListener = this::onHoldsReleased;
+    private final UiTasks tasks = new UiTasks();
+    // Cart total as last read, shown in the label and the checkout prompt
+    private Money shownTotal = Money.ZERO;
+
+    // A cart read in the background: copies of its lines and its running total
+    private record CartView(List<CartItem> items, Money total) {
+    }
 
     // This sets the EventController reference, allowing cart updates to reflect in the event list
     public void setEventController(EventController eventController) {
@@ -52,52 +65,61 @@ public class CartController {
     // Initializes the cart page UI when it loads
     @FXML
     public void initialize() {
-        System.out.println("Cart page initialized. Setting up the cart table...");
+        log.info("Cart page initialized. Setting up the cart table...");
+
+        eventNameColumn.setCellValueFactory(cell -> cell.getValue().getEvent().nameProperty());
+        venueColumn.setCellValueFactory(cell -> cell.getValue().getEvent().venueProperty());
+        quantityColumn.setCellValueFactory(cell -> cell.getValue().quantityProperty());
+        totalPriceColumn.setCellValueFactory(cell -> cell.getValue().totalPriceProperty());
+        priceColumn.setCellValueFactory(cell -> cell.getValue().priceProperty());
+        dayColumn.setCellValueFactory(cell -> cell.getValue().getEvent().dayProperty());
 
-        eventNameColumn.setCellValueFactory(new PropertyValueFactory<>("eventName"));
-        venueColumn.setCellValueFactory(new PropertyValueFactory<>("venue"));
-        quantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
-        totalPriceColumn.setCellValueFactory(new PropertyValueFactory<>("totalPrice"));
-        priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
-        dayColumn.setCellValueFactory(new PropertyValueFactory<>("day"));
+        tasks.attach(root);
+        refreshCart(true); // <- Ensures sync
 
+        SeatHoldSweeper.getInstance().addListener(holdListener);
+    }
+
+    // Reads the cart in the background (optionally re-syncing it with the database first) and shows it
+    private void refreshCart(boolean reloadFromDB) {
         String username = Session.getLoggedInUsername();
+        tasks.runLatest("cart", () -> {
+            if (reloadFromDB) {
+                CartManager.getInstance().loadCartFromDB(username);
+            }
+            return readCart(username);
+        }, this::showCart);
+    }
 
-        CartManager.getInstance().loadCartFromDB(username); // <- Ensures sync
-        cartTable.getItems().setAll(CartManager.getInstance().getCartItems(username));
+    // Runs on a background thread
+    private CartView readCart(String username) {
+        CartManager manager = CartManager.getInstance();
+        return new CartView(manager.getCartItems(username), manager.getTotalAmount(username));
+    }
 
-        double totalAmount = CartManager.getInstance().getTotalAmount(username);
-        totalAmountLabel.setText(String.format("Total: $%.2f", totalAmount));
+    private void showCart(CartView cart) {
+        // Items are already copies, so surviving rows just take the new quantity
+        ListDiff.apply(cartTable.getItems(), cart.items(), item -> item.getEvent().getId(), Function.identity(), CartItem::updateFrom);
+        shownTotal = cart.total();
+        totalAmountLabel.setText("Total: " + shownTotal.format());
     }
 
-    private void loadCartFromDB(String username) {
-        String query = "SELECT * FROM cart WHERE username = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                String name = rs.getString("event_name");
-                String venue = rs.getString("event_venue");
-                String day = rs.getString("event_day");
-                double price = rs.getDouble("event_price");
-                int quantity = rs.getInt("quantity");
-
-                Event dummyEvent = new Event(0, name, venue, day, price, 0, 0, true);
-                CartItem item = new CartItem(dummyEvent, quantity, price);
-                CartManager.getInstance().addToCart(username, item);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Refreshes the cart when expired seat holds were released, until this window is closed
+    private void onHoldsReleased(Set<Integer> eventIds) {
+        if (root.getScene() == null || root.getScene().getWindow() == null || !root.getScene().getWindow().isShowing()) {
+            SeatHoldSweeper.getInstance().removeListener(holdListener);
+            return;
         }
+        refreshCart(false);
     }
 
     // Called when the user clicks the "Checkout" button
     @FXML
     public void handleCheckout() {
         String username = Session.getLoggedInUsername();
-        if (CartManager.getInstance().getCartItems(username).isEmpty()) {
-            System.out.println("Checkout attempted with an empty cart.");
+        // The table shows the cart as last read, so the prompts below need no database access
+        if (cartTable.getItems().isEmpty()) {
+            log.warn("Checkout attempted with an empty cart.");
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("Checkout");
             alert.setHeaderText(null);
@@ -106,16 +128,15 @@ public class CartController {
             return;
         }
 
-        double total = CartManager.getInstance().getTotalAmount(username);
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("Confirm Checkout");
-        confirmAlert.setHeaderText("Total Amount: $" + String.format("%.2f", total));
+        confirmAlert.setHeaderText("Total Amount: " + shownTotal.format());
         confirmAlert.setContentText("Do you want to proceed to payment?");
-        System.out.println("Checkout initiated. Awaiting user confirmation...");
+        log.info("Checkout initiated. Awaiting user confirmation...");
 
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                System.out.println("User confirmed checkout. Prompting for confirmation code...");
+                log.info("User confirmed checkout. Prompting for confirmation code...");
 
                 TextInputDialog codeDialog = new TextInputDialog();
                 codeDialog.setTitle("Enter Confirmation Code");
@@ -124,22 +145,10 @@ public class CartController {
 
                 codeDialog.showAndWait().ifPresent(code -> {
                     if (code.matches("\\d{6}")) {
-                        System.out.println(" Confirmation code accepted. Proceeding to checkout...");
-                        CartManager.getInstance().checkout(username);
-                        cartTable.getItems().clear();
-                        totalAmountLabel.setText("Total: $0.00");
-
-                        Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
-                        successAlert.setTitle("Checkout");
-                        successAlert.setHeaderText(null);
-                        successAlert.setContentText("Checkout successful!");
-                        successAlert.showAndWait();
-
-                        if (eventController != null) {
-                            eventController.loadEventsFromDB();
-                        }
+                        log.info("Confirmation code accepted. Proceeding to checkout...");
+                        tasks.run(() -> CartManager.getInstance().checkout(username), this::showCheckoutResult);
                     } else {
-                        System.out.println(" Invalid confirmation code entered.");
+                        log.warn("Invalid confirmation code entered.");
                         Alert errorAlert = new Alert(Alert.AlertType.ERROR);
                         errorAlert.setTitle("Invalid Code");
                         errorAlert.setHeaderText(null);
@@ -151,10 +160,35 @@ public class CartController {
         });
     }
 
+    private void showCheckoutResult(boolean success) {
+        if (!success) {
+            Alert failedAlert = new Alert(Alert.AlertType.ERROR);
+            failedAlert.setTitle("Checkout");
+            failedAlert.setHeaderText(null);
+            failedAlert.setContentText("Checkout failed and no order was placed. Please review your cart and try again.");
+            failedAlert.showAndWait();
+            refreshCart(true);
+            return;
+        }
+        cartTable.getItems().clear();
+        shownTotal = Money.ZERO;
+        totalAmountLabel.setText("Total: " + shownTotal.format());
+
+        Alert successAlert = new Alert(Alert.AlertType.INFORMATION);
+        successAlert.setTitle("Checkout");
+        successAlert.setHeaderText(null);
+        successAlert.setContentText("Checkout successful!");
+        successAlert.showAndWait();
+
+        if (eventController != null) {
+            eventController.loadEventsFromDB();
+        }
+    }
+
     // Closes the cart window when "Close" is clicked
     @FXML
     private void handleClose() {
-        System.out.println(" Closing the cart window...");
+        log.info("Closing the cart window...");
         Stage stage = (Stage) root.getScene().getWindow();
         stage.close();
     }
@@ -164,7 +198,7 @@ public class CartController {
     private void handleUpdateQuantity() {
         CartItem selectedItem = cartTable.getSelectionModel().getSelectedItem();
         if (selectedItem != null) {
-            System.out.println("Quantity update initiated for event: " + selectedItem.getEvent().getName());
+            log.info("Quantity update initiated for event: " + selectedItem.getEvent().getName());
 
             TextInputDialog dialog = new TextInputDialog(String.valueOf(selectedItem.getQuantity()));
             dialog.setTitle("Update Quantity");
@@ -179,34 +213,23 @@ public class CartController {
                         return;
                     }
 
-                    int available = getAvailableTicketsFromDB(selectedItem.getEvent().getId());
-                    int currentQty = selectedItem.getQuantity();
-                    int extraNeeded = newQty - currentQty;
+                    int eventId = selectedItem.getEvent().getId();
+                    String username = Session.getLoggedInUsername();
 
-                    if (extraNeeded > available) {
-                        showAlert("Only " + available + " tickets available. Reduce your quantity.");
-                        return;
-                    }
+                    tasks.run(() -> changeQuantity(username, eventId, newQty), problem -> {
+                        if (problem != null) {
+                            showAlert(problem);
+                        } else {
+                            log.info("Quantity updated to " + newQty + " for event: " + selectedItem.getEvent().getName());
+                        }
 
-                    // ✅ Let CartManager handle full update
-                    CartManager.getInstance().updateCartItemQuantity(
-                            Session.getLoggedInUsername(),
-                            selectedItem.getEventName(),
-                            selectedItem.getVenue(),
-                            selectedItem.getEvent().getDay(),
-                            newQty
-                    );
-
-                    // ✅ Refresh Cart UI
-                    cartTable.getItems().clear();
-                    cartTable.getItems().addAll(CartManager.getInstance().getCartItems(Session.getLoggedInUsername()));
-                    totalAmountLabel.setText(String.format("Total: $%.2f", CartManager.getInstance().getTotalAmount(Session.getLoggedInUsername())));
-
-                    if (eventController != null) {
-                        eventController.loadEventsFromDB();
-                    }
+                        // ✅ Refresh Cart UI
+                        refreshCart(false);
 
-                    System.out.println("Quantity updated to " + newQty + " for event: " + selectedItem.getEvent().getName());
+                        if (eventController != null) {
+                            eventController.loadEventsFromDB();
+                        }
+                    });
                 } catch (NumberFormatException e) {
                     showAlert("Invalid number entered.");
                 }
@@ -214,20 +237,19 @@ public class CartController {
         }
     }
 
-    // Fetches the number of tickets left for an event from the database
-    private int getAvailableTicketsFromDB(int eventId) {
-        String query = "SELECT totalTickets, soldTickets FROM events WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, eventId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("totalTickets") - rs.getInt("soldTickets");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Runs on a background thread; returns a message for the user if the quantity could not be changed.
+    // The seats for the difference are taken or given back by the CartManager, against the line as stored now.
+    private String changeQuantity(String username, int eventId, int newQty) {
+        InventoryManager.Result result = CartManager.getInstance().updateCartItemQuantity(username, eventId, newQty);
+        if (result == null) {
+            return "This item is no longer in your cart because its seat hold expired.";
+        }
+        if (!result.isSuccess()) {
+            return result.status() == InventoryManager.Status.INSUFFICIENT_INVENTORY
+                    ? "Only " + result.available() + " more tickets available. Reduce your quantity."
+                    : "Tickets for this event cannot be booked right now.";
         }
-        return 0;
+        return null;
     }
 
     // Utility method to show a warning alert
@@ -258,10 +280,9 @@ public class CartController {
             stage.setTitle("Event Dashboard");
             stage.show();
 
-            System.out.println("Redirected to Events Page.");
+            log.info("Redirected to Events Page.");
         } catch (IOException e) {
-            e.printStackTrace();
-            System.out.println("Failed to redirect to Events Page.");
+            log.error("Failed to redirect to Events Page.", e);
         }
     }
 
@@ -270,28 +291,26 @@ public class CartController {
     private void handleRemoveItem() {
         CartItem selectedItem = cartTable.getSelectionModel().getSelectedItem();
         if (selectedItem != null) {
-            System.out.println("Removing item: " + selectedItem.getEvent().getName() + " from cart.");
+            log.info("Removing item: " + selectedItem.getEvent().getName() + " from cart.");
 
             String username = Session.getLoggedInUsername();
 
+            int eventId = selectedItem.getEvent().getId();
+
             // ✅ Only call the manager method to ensure centralized handling
-            CartManager.getInstance().removeFromCart(
-                    username,
-                    selectedItem.getEventName(),
-                    selectedItem.getVenue(),
-                    selectedItem.getEvent().getDay()
-            );
-
-            // ✅ Refresh frontend UI
-            cartTable.getItems().clear();
-            cartTable.getItems().addAll(CartManager.getInstance().getCartItems(username));
-            totalAmountLabel.setText(String.format("Total: $%.2f", CartManager.getInstance().getTotalAmount(username)));
-
-            if (eventController != null) {
-                eventController.loadEventsFromDB(); // Refresh event list
-            }
+            tasks.run(() -> {
+                CartManager.getInstance().removeFromCart(username, eventId);
+                return readCart(username);
+            }, cart -> {
+                // ✅ Refresh frontend UI
+                showCart(cart);
+
+                if (eventController != null) {
+                    eventController.loadEventsFromDB(); // Refresh event list
+                }
 
-            System.out.println("Item successfully removed from all layers.");
+                log.info("Item successfully removed from all layers.");
+            });
         } else {
             showAlert("Please select an item to remove.");
         }
@@ -2,408 +2,580 @@ package org.example.eventbookingsystem.controller;
 
 import org.example.eventbookingsystem.model.CartItem;
 import org.example.eventbookingsystem.model.Event;
-import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.model.EventRegistry;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.repository.CartRepository;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps every user's cart in memory and writes each change through to the cart repository.
+ * Each user's cart has its own lock: operations on one user happen one after another,
+ * while different users (for example several booking terminals in one JVM) never wait on each other.
+ * Callers only ever receive snapshots of a cart, never the live list.
+ * Each cart keeps a running total that every change adjusts, so reading it never walks the lines.
+ * An index from event id to the users holding it in a loaded cart lets event-wide changes, such as
+ * disabling an event, visit only the affected carts.
+ * <p>
+ * Carts are loaded on first use and the cache is bounded: carts unused for longer than the idle time
+ * (-Deventbooking.cartIdleMinutes, default 30) are evicted, and once more than -Deventbooking.cartCacheSize
+ * (default 10000) carts are in memory, the least recently used are evicted down to 90% of that.
+ * Every change is already in the database, or in the write-behind journal, which a read of the cart flushes
+ * first, so an evicted cart is simply read again on next use.
+ */
 public class CartManager {
 
-    private static CartManager instance;
-
-    private final Map<String, List<CartItem>> userCarts = new HashMap<>();
-
-    private CartManager() {
+    private static final Log log = Log.get(CartManager.class);
+
+    private static final CartManager instance = new CartManager();
+
+    private static final int MAX_CARTS = Integer.getInteger("eventbooking.cartCacheSize", 10_000);
+    // Evicting to below the limit leaves room, so a full cache is not swept again on every new user
+    private static final int LOW_WATER = MAX_CARTS * 9 / 10;
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("eventbooking.cartIdleMinutes", 30L));
+    private static final long SWEEP_INTERVAL_NANOS = IDLE_NANOS / 4;
+
+    private final ConcurrentHashMap<String, UserCart> userCarts = new ConcurrentHashMap<>();
+    // Event id -> users whose loaded cart has a line for it; kept in step with the carts by reindex
+    private final ConcurrentHashMap<Integer, Set<String>> holders = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * Cart cache counters since startup.
+     *
+     * @param hits      cart uses served from memory
+     * @param misses    cart uses that read the cart from the database
+     * @param evictions carts dropped from memory for being idle or least recently used
+     * @param size      carts in memory now
+     */
+    public record CacheStats(long hits, long misses, long evictions, int size) {
     }
 
-    public static CartManager getInstance() {
-        if (instance == null) {
-            instance = new CartManager();
+    /**
+     * One user's cart. The items are only read or changed while holding the lock, and only through
+     * the methods below, which keep the total in step.
+     */
+    private static final class UserCart {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<CartItem> items = new ArrayList<>();
+        private boolean loaded;
+        // Set under the lock when the cart leaves the cache; whoever locks it afterwards must look the user up again
+        private boolean evicted;
+        private volatile long lastUsed = System.nanoTime();
+        // Sum of the lines' totals
+        private Money total = Money.ZERO;
+        // Event ids this cart is listed under in the holders index
+        private Set<Integer> indexed = Set.of();
+
+        CartItem find(int eventId) {
+            for (CartItem item : items) {
+                if (item.getEvent().getId() == eventId) {
+                    return item;
+                }
+            }
+            return null;
         }
-        return instance;
-    }
 
-    public void addToCart(String username, CartItem item) {
-        List<CartItem> cart = userCarts.computeIfAbsent(username, k -> new ArrayList<>());
-
-        for (CartItem existingItem : cart) {
-            if (existingItem.getEventName().equals(item.getEventName())
-                    && existingItem.getVenue().equals(item.getVenue())
-                    && existingItem.getEvent().getDay().equals(item.getEvent().getDay())) {
-                existingItem.setQuantity(existingItem.getQuantity() + item.getQuantity());
-                updateCartInDB(username, existingItem);
-                return;
-            }
+        void add(CartItem item) {
+            items.add(item);
+            total = total.plus(item.getTotalPrice());
         }
 
-        // If not in memory, check DB
-        if (getCartItemFromDB(username, item)) {
-            for (CartItem dbItem : cart) {
-                if (dbItem.getEventName().equals(item.getEventName())
-                        && dbItem.getVenue().equals(item.getVenue())
-                        && dbItem.getEvent().getDay().equals(item.getEvent().getDay())) {
-                    dbItem.setQuantity(dbItem.getQuantity() + item.getQuantity());
-                    updateCartInDB(username, dbItem);
-                    return;
+        void setQuantity(CartItem item, int quantity) {
+            Money before = item.getTotalPrice();
+            item.setQuantity(quantity);
+            total = total.minus(before).plus(item.getTotalPrice());
+        }
+
+        boolean removeIf(Predicate<CartItem> filter) {
+            boolean removed = false;
+            for (Iterator<CartItem> it = items.iterator(); it.hasNext(); ) {
+                CartItem item = it.next();
+                if (filter.test(item)) {
+                    it.remove();
+                    total = total.minus(item.getTotalPrice());
+                    removed = true;
                 }
             }
+            return removed;
         }
 
-        cart.add(item);
-        insertCartToDB(username, item);
+        void clear() {
+            items.clear();
+            total = Money.ZERO;
+        }
     }
 
-    private boolean getCartItemFromDB(String username, CartItem item) {
-        String sql = "SELECT quantity FROM cart WHERE username = ? AND event_name = ? AND event_venue = ? AND event_day = ?";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, username);
-            stmt.setString(2, item.getEventName());
-            stmt.setString(3, item.getVenue());
-            stmt.setString(4, item.getEvent().getDay());
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+    private CartManager() {
     }
 
-    private int getEventIdFromEventsTable(String name, String venue, String day) {
-        String query = "SELECT id FROM events WHERE name = ? AND venue = ? AND day = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, name);
-            stmt.setString(2, venue);
-            stmt.setString(3, day);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("id");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return -1;
+    public static CartManager getInstance() {
+        return instance;
     }
 
-    private void insertCartToDB(String username, CartItem item) {
-        String query = "INSERT INTO cart (username, event_name, event_venue, event_day, event_price, quantity) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, username);
-            stmt.setString(2, item.getEvent().getName());
-            stmt.setString(3, item.getEvent().getVenue());
-            stmt.setString(4, item.getEvent().getDay());
-            stmt.setDouble(5, item.getEvent().getPrice());
-            stmt.setInt(6, item.getQuantity());
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Runs an action on the user's cart under its lock, loading it from the database first if needed
+    private <T> T withCart(String username, Function<UserCart, T> action) {
+        try {
+            while (true) {
+                UserCart cart = userCarts.computeIfAbsent(username, k -> new UserCart());
+                cart.lock.lock();
+                try {
+                    if (cart.evicted) {
+                        continue; // Evicted between the lookup and the lock; the next lookup makes a fresh one
+                    }
+                    cart.lastUsed = System.nanoTime();
+                    if (cart.loaded) {
+                        hits.increment();
+                    } else {
+                        misses.increment();
+                        readCartFromDB(username).forEach(cart::add);
+                        cart.loaded = true;
+                    }
+                    return action.apply(cart);
+                } finally {
+                    reindex(username, cart);
+                    cart.lock.unlock();
+                }
+            }
+        } finally {
+            evictIfDue();
         }
     }
 
-
-    private void updateCartInDB(String username, CartItem item) {
-        String query = "UPDATE cart SET quantity = ? WHERE username = ? AND event_name = ? AND event_venue = ? AND event_day = ?";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, item.getQuantity());
-            stmt.setString(2, username);
-            stmt.setString(3, item.getEventName());
-            stmt.setString(4, item.getVenue());
-            stmt.setString(5, item.getEvent().getDay());
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Same as withCart, but skips users whose cart is not in memory instead of loading it
+    private void withLoadedCart(String username, UserCart cart, Consumer<UserCart> action) {
+        cart.lock.lock();
+        try {
+            if (cart.loaded && !cart.evicted) {
+                action.accept(cart);
+            }
+        } finally {
+            reindex(username, cart);
+            cart.lock.unlock();
         }
     }
 
-    public List<CartItem> getCartItems(String username) {
-        // If not loaded, fetch from DB
-        if (!userCarts.containsKey(username)) {
-            loadCartFromDB(username);
+    // Sweeps the cache when it is over the limit or an idle check is due; one thread sweeps at a time
+    private void evictIfDue() {
+        long now = System.nanoTime();
+        if (userCarts.size() <= MAX_CARTS && now - lastSweep < SWEEP_INTERVAL_NANOS) {
+            return;
+        }
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastSweep = now;
+            int idle = 0;
+            int recent = 0;
+            // lastUsed keeps changing, so it is read once per cart for sorting
+            record Use(String username, UserCart cart, long lastUsed) {
+            }
+            List<Use> kept = new ArrayList<>();
+            for (Map.Entry<String, UserCart> entry : userCarts.entrySet()) {
+                UserCart cart = entry.getValue();
+                long lastUsed = cart.lastUsed;
+                if (now - lastUsed > IDLE_NANOS) {
+                    idle += evict(entry.getKey(), cart) ? 1 : 0;
+                } else {
+                    kept.add(new Use(entry.getKey(), cart, lastUsed));
+                }
+            }
+            if (userCarts.size() > MAX_CARTS) {
+                kept.sort(Comparator.comparingLong(Use::lastUsed));
+                for (Iterator<Use> it = kept.iterator(); it.hasNext() && userCarts.size() > LOW_WATER; ) {
+                    Use use = it.next();
+                    recent += evict(use.username(), use.cart()) ? 1 : 0;
+                }
+            }
+            if (idle + recent > 0) {
+                log.info("Evicted " + idle + " idle and " + recent + " least recently used carts; " + getCacheStats());
+            }
+        } finally {
+            sweeping.set(false);
         }
-        return userCarts.getOrDefault(username, new ArrayList<>());
     }
 
-    public void loadCartFromDB(String username) {
-        List<CartItem> items = new ArrayList<>();
-        String query = "SELECT * FROM cart WHERE username = ?";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                String name = rs.getString("event_name");
-                String venue = rs.getString("event_venue");
-                String day = rs.getString("event_day");
-                double price = rs.getDouble("event_price");
-                int quantity = rs.getInt("quantity");
-
-                // ✅ Fetch actual eventId from the events table
-                int eventId = getEventIdFromEventsTable(name, venue, day);
-
-                Event event = new Event(eventId, name, venue, day, price, 0, 0, true);
-                CartItem item = new CartItem(event, quantity, price);
-                items.add(item);
+    // Drops a cart from memory unless someone is using it right now, which also makes it recently used
+    private boolean evict(String username, UserCart cart) {
+        if (!cart.lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (!userCarts.remove(username, cart)) {
+                return false;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            cart.evicted = true;
+            cart.clear();
+            reindex(username, cart);
+            evictions.increment();
+            return true;
+        } finally {
+            cart.lock.unlock();
         }
-
-        userCarts.put(username, items);
     }
 
+    /**
+     * Returns the cart cache counters.
+     */
+    public CacheStats getCacheStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), userCarts.size());
+    }
 
-    public void clearCart(String username) {
-        userCarts.remove(username);
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("DELETE FROM cart WHERE username = ?")) {
-            stmt.setString(1, username);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Brings the holders index in line with the cart's lines; called under the cart's lock after every change.
+    // Carts are small, so comparing the whole set of event ids is cheaper than tracking each edit.
+    private void reindex(String username, UserCart cart) {
+        Set<Integer> current = new HashSet<>();
+        for (CartItem item : cart.items) {
+            current.add(item.getEvent().getId());
+        }
+        if (current.equals(cart.indexed)) {
+            return;
+        }
+        for (Integer eventId : cart.indexed) {
+            if (!current.contains(eventId)) {
+                holders.computeIfPresent(eventId, (id, users) -> {
+                    users.remove(username);
+                    return users.isEmpty() ? null : users;
+                });
+            }
+        }
+        for (Integer eventId : current) {
+            if (!cart.indexed.contains(eventId)) {
+                // Added inside compute so a concurrent removal cannot drop the set between creating and filling it
+                holders.compute(eventId, (id, users) -> {
+                    Set<String> set = users != null ? users : ConcurrentHashMap.newKeySet();
+                    set.add(username);
+                    return set;
+                });
+            }
         }
+        cart.indexed = current;
     }
 
-    public double getTotalAmount(String username) {
-        return getCartItems(username).stream()
-                .mapToDouble(CartItem::getTotalPrice)
-                .sum();
+    /**
+     * Returns the users whose in-memory cart holds the event.
+     */
+    public Set<String> getHolders(int eventId) {
+        Set<String> users = holders.get(eventId);
+        return users == null ? Set.of() : Set.copyOf(users);
     }
 
-    public void checkout(String username) {
-        List<CartItem> cartItems = getCartItems(username);
-        try (Connection conn = DBUtil.getConnection()) {
-            for (CartItem item : cartItems) {
-                String insert = "INSERT INTO orders (orderNumber, username, eventName, venue, day, quantity, totalPrice, dateTime) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-                PreparedStatement stmt = conn.prepareStatement(insert);
-                stmt.setString(1, generateOrderNumber(conn));
-                stmt.setString(2, username);
-                stmt.setString(3, item.getEvent().getName());
-                stmt.setString(4, item.getEvent().getVenue());
-                stmt.setString(5, item.getEvent().getDay());
-                stmt.setInt(6, item.getQuantity());
-                stmt.setDouble(7, item.getTotalPrice());
-                stmt.setString(8, getCurrentTimestamp());
-                stmt.executeUpdate();
+    /**
+     * Drops an event's lines from the in-memory carts that hold it; the caller is responsible for the database.
+     *
+     * @return how many carts had a line for the event
+     */
+    public int dropEventFromLoadedCarts(int eventId) {
+        int dropped = 0;
+        for (String username : getHolders(eventId)) {
+            UserCart cart = userCarts.get(username);
+            if (cart == null) {
+                continue;
+            }
+            boolean[] removed = {false};
+            withLoadedCart(username, cart, c -> removed[0] = c.removeIf(item -> item.getEvent().getId() == eventId));
+            if (removed[0]) {
+                dropped++;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-
-        clearCart(username);
+        return dropped;
     }
 
-    public void updateCartItemQuantity(String username, String eventName, String venue, String day, int newQuantity) {
-        List<CartItem> cart = getCartItems(username);
-        for (CartItem item : cart) {
-            if (item.getEventName().equals(eventName)
-                    && item.getVenue().equals(venue)
-                    && item.getEvent().getDay().equals(day)) {
-
-                int eventId = item.getEvent().getId();
-                int oldQty = item.getQuantity();
-                int diff = newQuantity - oldQty;
-
-                // Update memory
-                item.setQuantity(newQuantity);
-
-                // Update cart table
-                updateCartInDB(username, item);
-
-                // Update soldTickets in events table
-                try (Connection conn = DBUtil.getConnection();
-                     PreparedStatement stmt = conn.prepareStatement(
-                             "UPDATE events SET soldTickets = soldTickets + ? WHERE id = ?")) {
-                    stmt.setInt(1, diff); // Can be + or -
-                    stmt.setInt(2, eventId);
-                    stmt.executeUpdate();
-                    System.out.println("Updated soldTickets in DB by " + diff + " for eventId: " + eventId);
-                } catch (Exception e) {
-                    e.printStackTrace();
+    public void addToCart(String username, CartItem item) {
+        withCart(username, cart -> {
+            CartItem existingItem = cart.find(item.getEvent().getId());
+            if (existingItem != null) {
+                cart.setQuantity(existingItem, existingItem.getQuantity() + item.getQuantity());
+                if (saveCartItemToDB(username, existingItem)) {
+                    return null;
                 }
+                // The old line's hold ran out or it could not be stored; it goes with its seats,
+                // and the new ones start a fresh line
+                removeFromCartLocked(username, existingItem.getEvent().getId(), cart);
+            }
 
-                return;
+            cart.add(item);
+            saveCartItemToDB(username, item);
+            return null;
+        });
+    }
+
+    // Saves the cart line, straight away or through the write-behind journal when that is running.
+    // Every save renews the seat hold; a line whose hold already expired is not saved, see SeatHoldSweeper.renewHold.
+    // Returns false if the hold had expired or the line could not be saved.
+    private boolean saveCartItemToDB(String username, CartItem item) {
+        return SeatHoldSweeper.getInstance().renewHold(item, () -> {
+            CartWriteBehind writeBehind = CartWriteBehind.getInstance();
+            if (writeBehind.isRunning()) {
+                writeBehind.save(username, item);
+                return true;
             }
-        }
+            try {
+                Repositories.getInstance().carts().save(username, CartRepository.Line.of(item));
+                return true;
+            } catch (SQLException e) {
+                log.error("Failed to save cart item for user: " + username, e);
+                return false;
+            }
+        });
     }
 
-    public void removeFromCart(String username, String eventName, String venue, String day) {
-        List<CartItem> cart = getCartItems(username);
-        Iterator<CartItem> iterator = cart.iterator();
-
-        while (iterator.hasNext()) {
-            CartItem item = iterator.next();
-            if (item.getEventName().equals(eventName)
-                    && item.getVenue().equals(venue)
-                    && item.getEvent().getDay().equals(day)) {
-
-                int eventId = item.getEvent().getId(); // Ensure Event has ID set
-                int quantity = item.getQuantity();
-
-                // Step 1: Remove from memory
-                iterator.remove();
-
-                // Step 2: Remove from cart table in DB
-                String query = "DELETE FROM cart WHERE username = ? AND event_name = ? AND event_venue = ? AND event_day = ?";
-                try (Connection conn = DBUtil.getConnection();
-                     PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, username);
-                    stmt.setString(2, eventName);
-                    stmt.setString(3, venue);
-                    stmt.setString(4, day);
-                    stmt.executeUpdate();
-                    System.out.println("Removed item from DB: " + eventName + " | " + venue + " | " + day);
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+    /**
+     * Returns a snapshot of the user's cart, loading it from the database on first use.
+     */
+    public List<CartItem> getCartItems(String username) {
+        // Copies, so screens can bind to them while the cart's own items change on other threads
+        return withCart(username, cart -> cart.items.stream().map(CartItem::copy).toList());
+    }
 
-                // Step 3: Update soldTickets in events table (subtract quantity)
-                if (eventId > 0) {
-                    try (Connection conn = DBUtil.getConnection();
-                         PreparedStatement stmt = conn.prepareStatement(
-                                 "UPDATE events SET soldTickets = soldTickets - ? WHERE id = ?")) {
-                        stmt.setInt(1, quantity);
-                        stmt.setInt(2, eventId);
-                        stmt.executeUpdate();
-                        System.out.println("Updated soldTickets for eventId: " + eventId + " (-" + quantity + ")");
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                    }
-                } else {
-                    System.out.println("Warning: Event ID is missing. Cannot update soldTickets.");
-                }
+    // Replaces the in-memory cart with what is in the database
+    public void loadCartFromDB(String username) {
+        List<CartItem> fresh = readCartFromDB(username);
+        withCart(username, cart -> {
+            cart.clear();
+            fresh.forEach(cart::add);
+            return null;
+        });
+    }
 
-                break; // Exit after removing one matching item
+    // Reads a user's cart from the repository.
+    // Lines reference the registry's shared event; the stored event only fills it the first time.
+    private List<CartItem> readCartFromDB(String username) {
+        CartWriteBehind.getInstance().flush(username);
+        List<CartItem> items = new ArrayList<>();
+        try {
+            for (CartRepository.Line line : Repositories.getInstance().carts().findByUser(username)) {
+                Event event = EventRegistry.getInstance().get(line.event().getId());
+                if (event == null) {
+                    event = EventRegistry.getInstance().intern(line.event());
+                }
+                CartItem item = new CartItem(event, line.quantity(), line.price());
+                item.setHoldExpiresAt(line.holdExpiresAt());
+                items.add(item);
             }
+        } catch (SQLException e) {
+            log.error("Failed to load cart items for user: " + username, e);
         }
+        return items;
     }
 
-    public String generateOrderNumber(Connection conn) {
-        String query = "SELECT MAX(CAST(orderNumber AS INTEGER)) AS maxOrder FROM orders";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next() && rs.getString("maxOrder") != null) {
-                int next = Integer.parseInt(rs.getString("maxOrder")) + 1;
-                return String.format("%04d", next);
+    /**
+     * Empties the user's cart, in memory and in the database, and gives back the seats its lines held.
+     */
+    public void clearCart(String username) {
+        withCart(username, cart -> {
+            cart.clear();
+            // Journaled saves go first, or they would bring deleted lines back
+            CartWriteBehind.getInstance().flush(username);
+            try {
+                Map<Integer, Integer> released = Repositories.getInstance().carts().clear(username);
+                for (Integer eventId : released.keySet()) {
+                    InventoryManager.getInstance().invalidate(eventId);
+                    EventCatalog.getInstance().invalidate(eventId);
+                }
+                log.info("Cleared cart of " + username + " (" + released.size() + " events released)");
+            } catch (SQLException e) {
+                log.error("Failed to clear cart of user: " + username, e);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        return "0001";
+            return null;
+        });
     }
 
-    public String getCurrentTimestamp() {
-        return LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    /**
+     * Returns the total of the user's cart, kept up to date by every change rather than added up here.
+     */
+    public Money getTotalAmount(String username) {
+        return withCart(username, cart -> cart.total);
     }
 
-    public Set<String> getAllUsers() {
-        return userCarts.keySet();
+    /**
+     * Turns the user's cart into orders in a single transaction.
+     * All order rows go in as one batch, and the cart lines holding the seats are consumed
+     * in the same commit, so a failure leaves either the whole cart or the whole order in place.
+     *
+     * @return true if the orders were committed
+     */
+    public boolean checkout(String username) {
+        // Hold the user's cart for the whole checkout so no edit can slip in between
+        return withCart(username, cart -> checkoutLocked(username, cart));
     }
 
-    public void removeItemFromCartByComposite(String username, CartItem item) {
-        List<CartItem> cart = userCarts.get(username);
-        if (cart != null) {
-            cart.remove(item);
+    private boolean checkoutLocked(String username, UserCart cart) {
+        List<CartItem> cartItems = new ArrayList<>(cart.items);
+        if (cartItems.isEmpty()) {
+            return false;
         }
-    }
 
-    public void removeEventFromAllCarts(String eventName, String venue, String day) {
-        System.out.println("CartManager called to remove event: " + eventName + " | " + venue + " | " + day);
-        System.out.println("Active user carts: " + userCarts.keySet());
-        for (String username : userCarts.keySet()) {
-            List<CartItem> cart = userCarts.get(username);
-            Iterator<CartItem> iterator = cart.iterator();
-            System.out.println("CartManager called to remove event: " + eventName + " | " + venue + " | " + day);
-            System.out.println("Active user carts: " + userCarts.keySet());
-            while (iterator.hasNext()) {
-                CartItem item = iterator.next();
-                if (item.getEventName().equals(eventName)
-                        && item.getVenue().equals(venue)
-                        && item.getEvent().getDay().equals(day)) {
-
-                    int qty = item.getQuantity();
-                    int eventId = item.getEvent().getId();
-
-                    // Remove from memory
-                    iterator.remove();
-
-                    // Remove from DB
-                    try (Connection conn = DBUtil.getConnection();
-                         PreparedStatement stmt = conn.prepareStatement("DELETE FROM cart WHERE  event_name = ? AND event_venue = ? AND event_day = ?")) {
-                        System.out.println("Attempting to delete from DB: " + eventName + " | " + venue + " | " + day);
-                        stmt.setString(1, eventName);
-                        stmt.setString(2, venue);
-                        stmt.setString(3, day);
-                        stmt.executeUpdate();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+        // Allocate ids before the transaction: renewing the id lease uses its own connection
+        List<String> orderNumbers = new ArrayList<>();
+        try {
+            for (int i = 0; i < cartItems.size(); i++) {
+                orderNumbers.add(generateOrderNumber());
+            }
+        } catch (IllegalStateException e) {
+            log.error("Could not generate order numbers for checkout", e);
+            return false;
+        }
+        String timestamp = getCurrentTimestamp();
 
-                    // Update soldTickets
-                    try (Connection conn = DBUtil.getConnection();
-                         PreparedStatement stmt = conn.prepareStatement("UPDATE events SET soldTickets = soldTickets - ? WHERE id = ?")) {
-                        stmt.setInt(1, qty);
-                        stmt.setInt(2, eventId);
-                        stmt.executeUpdate();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+        CartWriteBehind.getInstance().flush(username);
+        try {
+            Repositories.getInstance().orders().checkout(username, cartItems, orderNumbers, timestamp);
+        } catch (SQLException e) {
+            log.error("Checkout failed for user: " + username, e);
+            return false;
+        }
+
+        cart.clear();
+        log.info("Checkout committed " + cartItems.size() + " orders for user: " + username);
+        return true;
+    }
 
-                    System.out.println("Disabled event removed from cart of user: " + username);
+    /**
+     * Changes the quantity of a cart line and takes or gives back the seats for the difference.
+     * The difference is worked out from the line as it is under the cart lock, not from what a screen last showed,
+     * so a change made meanwhile in another window is never counted twice. Extra seats are reserved before the line
+     * grows; seats a smaller line no longer needs go back only once it has been saved.
+     *
+     * @return the reservation or release for the difference, which failed if the extra seats were not available;
+     * null if the line is no longer in the cart (for example its hold expired). An expired line is removed here,
+     * together with any seats the sweeper had not yet given back
+     */
+    public InventoryManager.Result updateCartItemQuantity(String username, int eventId, int newQuantity) {
+        return withCart(username, cart -> {
+            CartItem item = cart.find(eventId);
+            if (item == null) {
+                return null;
+            }
+            int diff = newQuantity - item.getQuantity();
+            InventoryManager inventory = InventoryManager.getInstance();
+
+            InventoryManager.Result result = new InventoryManager.Result(InventoryManager.Status.RESERVED, eventId, 0, -1);
+            if (diff > 0) {
+                result = inventory.reserve(eventId, diff);
+                if (!result.isSuccess()) {
+                    return result;
                 }
             }
-        }
-    }
 
-    public void preloadAllUserCarts() {
-        try (Connection conn = DBUtil.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT DISTINCT username FROM cart")) {
+            // Update memory
+            cart.setQuantity(item, newQuantity);
 
-            while (rs.next()) {
-                String username = rs.getString("username");
-                loadCartForUser(username);
+            // Update the stored line
+            if (!saveCartItemToDB(username, item)) {
+                // The stored line still has the old quantity and goes with its seats; the extra ones are returned here
+                removeFromCartLocked(username, eventId, cart);
+                if (diff > 0) {
+                    inventory.release(eventId, diff);
+                }
+                log.info("Cart line for eventId " + eventId + " of " + username + " had expired or could not be saved; line removed");
+                return null;
             }
+            if (diff < 0) {
+                result = inventory.release(eventId, -diff);
+            }
+            log.debug("Updated cart quantity by " + diff + " for eventId: " + eventId);
+            return result;
+        });
+    }
 
-            System.out.println("All user carts preloaded into memory. Total: " + userCarts.size());
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    public void removeFromCart(String username, int eventId) {
+        withCart(username, cart -> {
+            removeFromCartLocked(username, eventId, cart);
+            return null;
+        });
     }
 
+    private void removeFromCartLocked(String username, int eventId, UserCart cart) {
+        CartItem item = cart.find(eventId);
+        if (item == null) {
+            return;
+        }
 
-    public void loadCartForUser(String username) {
-        List<CartItem> cart = new ArrayList<>();
+        // Step 1: Remove from memory
+        cart.removeIf(line -> line == item);
 
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM cart WHERE username = ?")) {
+        // Step 2: Remove the stored line and give back the seats it still held, together
+        CartWriteBehind.getInstance().flush(username);
+        try {
+            int released = Repositories.getInstance().carts().remove(username, eventId);
+            InventoryManager.getInstance().invalidate(eventId);
+            EventCatalog.getInstance().invalidate(eventId);
+            log.info("Removed eventId " + eventId + " from cart of " + username + " (-" + released + " sold)");
+        } catch (SQLException e) {
+            log.error("Failed to remove eventId " + eventId + " from cart of " + username, e);
+        }
+    }
 
-            stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Writes the user's journaled cart changes to the database, e.g. on logout.
+     */
+    public void flushPendingWrites(String username) {
+        withCart(username, cart -> {
+            CartWriteBehind.getInstance().flush(username);
+            return null;
+        });
+    }
 
-            while (rs.next()) {
-                String eventName = rs.getString("event_name");
-                String venue = rs.getString("event_venue");
-                String day = rs.getString("event_day");
-                int quantity = rs.getInt("quantity");
-                double price = rs.getDouble("event_price");
-                int eventId = rs.getInt("id");
+    // Order numbers come from the in-memory id generator, so checkout never scans the orders table
+    public String generateOrderNumber() {
+        return Repositories.getInstance().orderIds().nextOrderNumber();
+    }
 
-                // Construct a dummy Event object to attach to the CartItem
-                Event event = new Event(eventId, eventName, venue, day, price, 0, 0, true);
-                CartItem item = new CartItem(event, quantity, price);
-                cart.add(item);
-            }
+    public String getCurrentTimestamp() {
+        return LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
 
-            if (!cart.isEmpty()) {
-                userCarts.put(username, cart);
-                System.out.println("Loaded cart for user: " + username + ", items: " + cart.size());
-            }
+    /**
+     * Drops a cart line from memory after the seat hold sweeper released it in the database.
+     * A line that was renewed in the meantime keeps its newer hold and stays.
+     */
+    public void dropExpiredHold(String username, int eventId) {
+        UserCart cart = userCarts.get(username);
+        if (cart != null) {
+            long now = System.currentTimeMillis();
+            withLoadedCart(username, cart,
+                    c -> c.removeIf(item -> item.getEvent().getId() == eventId && item.getHoldExpiresAt() <= now));
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Removes an event from every cart, in memory and in the database,
+     * and releases all of its carted seats back to the event in the same transaction.
+     * Only the carts holding the event are visited; carts not loaded in memory are covered by the repository,
+     * so nothing has to be preloaded first.
+     */
+    public void removeEventFromAllCarts(int eventId) {
+        int dropped = dropEventFromLoadedCarts(eventId);
+        log.debug("Event " + eventId + " removed from " + dropped + " in-memory carts");
+        // The seats released are summed from the stored lines, so they must hold every quantity change
+        CartWriteBehind.getInstance().flush();
+
+        try {
+            int removed = Repositories.getInstance().carts().removeEvent(eventId);
+            InventoryManager.getInstance().invalidate(eventId);
+            EventCatalog.getInstance().invalidate(eventId);
+            log.info("Removed " + removed + " cart lines for eventId " + eventId);
+        } catch (SQLException e) {
+            log.error("Failed to remove eventId " + eventId + " from all carts", e);
         }
     }
 }
-
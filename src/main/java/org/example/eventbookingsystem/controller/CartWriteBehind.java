@@ -0,0 +1,187 @@
+package org.example.eventbookingsystem.controller;
+
+import org.example.eventbookingsystem.model.CartItem;
+import org.example.eventbookingsystem.repository.CartRepository.Line;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-behind for cart line saves (-Deventbooking.cartWriteBehind=true).
+ * While running, {@link CartManager} journals each saved line here instead of writing it; repeated saves of
+ * the same line replace each other, so a burst of quantity clicks becomes one row write. A background
+ * thread writes the journal every -Deventbooking.cartFlushMillis (default 200) in one batched transaction.
+ * <p>
+ * Anything that reads or deletes a user's cart rows flushes that user first (see {@link #flush(String)}),
+ * and checkout, logout and {@link #stop()} flush as well, so the journal never holds back a write
+ * that a later statement depends on. Seat counts are not journaled; they are still changed immediately.
+ * <p>
+ * The trade-off: lines journaled when the process dies are lost, while the seats reserved for them stay
+ * sold. A normal exit or kill flushes through {@link #stop()} and a shutdown hook, but a hard crash
+ * (kill -9, power loss) can leave up to cartFlushMillis of cart changes with no line behind their seats,
+ * which the hold sweeper cannot find and an administrator has to correct. Seat counts cannot be rebuilt
+ * from the rows at startup: events start with seats sold that no order accounts for, and another terminal's
+ * journal may hold seats of its own. Leave write-behind off where that risk is not acceptable.
+ */
+public class CartWriteBehind {
+
+    private static final Log log = Log.get(CartWriteBehind.class);
+
+    // Off by default: a hard crash loses journaled lines but not their seats, see the class comment
+    private static final boolean ENABLED = Boolean.getBoolean("eventbooking.cartWriteBehind");
+    private static final long FLUSH_MILLIS = Long.getLong("eventbooking.cartFlushMillis", 200L);
+
+    private static final CartWriteBehind instance = new CartWriteBehind();
+
+    // Username -> event id -> line. Inner maps are only touched inside compute on their user's entry,
+    // so taking a user's entry out with remove hands its lines over whole.
+    private final ConcurrentHashMap<String, Map<Integer, Line>> journal = new ConcurrentHashMap<>();
+    // Held while writing, so a flush of one user waits for a batch already taken out of the journal
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile Thread worker;
+    private boolean hookAdded;
+
+    private CartWriteBehind() {
+    }
+
+    public static CartWriteBehind getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts the background writer if write-behind is enabled. Safe to call more than once.
+     */
+    public synchronized void start() {
+        if (!ENABLED || worker != null) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "cart-writer");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+        if (!hookAdded) {
+            // A kill that skips the application's own stop still writes the journal; a hard crash cannot
+            Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "cart-writer-shutdown"));
+            hookAdded = true;
+        }
+        log.warn("Cart write-behind started (flush every " + FLUSH_MILLIS + " ms); cart changes from the last "
+                + FLUSH_MILLIS + " ms are lost if the process crashes, while their seats stay sold.");
+    }
+
+    /**
+     * Stops the background writer and writes everything still journaled.
+     */
+    public synchronized void stop() {
+        Thread thread = worker;
+        if (thread == null) {
+            return;
+        }
+        worker = null;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("Cart write-behind stopped; " + coalesced.sum() + " line saves were coalesced.");
+    }
+
+    /**
+     * Returns true if saves are being journaled rather than written straight away.
+     */
+    boolean isRunning() {
+        return worker != null;
+    }
+
+    /**
+     * Journals the line's current state, replacing any unwritten save of the same line.
+     * Called under the user's cart lock.
+     */
+    void save(String username, CartItem item) {
+        Line line = Line.of(item);
+        journal.compute(username, (user, lines) -> {
+            Map<Integer, Line> map = lines != null ? lines : new HashMap<>();
+            if (map.put(item.getEvent().getId(), line) != null) {
+                coalesced.increment();
+            }
+            return map;
+        });
+    }
+
+    /**
+     * Writes the user's journaled lines. Called under the user's cart lock before touching their rows,
+     * which also keeps new saves for the user from arriving meanwhile.
+     */
+    void flush(String username) {
+        writeLock.lock();
+        try {
+            Map<Integer, Line> lines = journal.remove(username);
+            if (lines != null) {
+                write(Map.of(username, lines));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything journaled so far.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            Map<String, Map<Integer, Line>> batch = new HashMap<>();
+            for (String username : new ArrayList<>(journal.keySet())) {
+                Map<Integer, Line> lines = journal.remove(username);
+                if (lines != null) {
+                    batch.put(username, lines);
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Writes the lines in one transaction; on failure they go back into the journal behind any newer saves
+    private void write(Map<String, Map<Integer, Line>> batch) {
+        Map<String, Collection<Line>> lines = new HashMap<>();
+        batch.forEach((username, byEvent) -> lines.put(username, byEvent.values()));
+        try {
+            Repositories.getInstance().carts().saveAll(lines);
+            log.debug(() -> "Wrote journaled cart lines for " + batch.size() + " users");
+        } catch (SQLException e) {
+            log.error("Failed to write journaled cart lines for " + batch.size() + " users; keeping them for the next flush", e);
+            batch.forEach((username, byEvent) -> journal.merge(username, byEvent, (newer, older) -> {
+                older.putAll(newer);
+                return older;
+            }));
+        }
+    }
+
+    // Runs on a background thread
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(FLUSH_MILLIS);
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -3,31 +3,42 @@ package org.example.eventbookingsystem.controller;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
-import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
+import org.example.eventbookingsystem.utilities.UiTasks;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 
 public class EditEventController {
 
+    private static final Log log = Log.get(EditEventController.class);
+
     // UI fields to display/edit event details
     @FXML private TextField nameField, venueField, dayField, priceField, capacityField;
     @FXML private Label statusLabel;
     @FXML private TextField soldTicketsField;
     private int eventId; // Holds the ID of the event being edited
+    private final UiTasks tasks = new UiTasks();
+
+    @FXML
+    public void initialize() {
+        tasks.attach(nameField);
+    }
 
     // Called by the parent controller to populate the popup with current event info
-    public void setEventDetails(int id, String name, String venue, String day, double price, int capacity,int soldTickets) {
+    public void setEventDetails(int id, String name, String venue, String day, Money price, int capacity,int soldTickets) {
         this.eventId = id;
         nameField.setText(name);
         venueField.setText(venue);
         dayField.setText(day);
-        priceField.setText(String.valueOf(price));
+        priceField.setText(price.toString());
         capacityField.setText(String.valueOf(capacity));
         soldTicketsField.setText(String.valueOf(soldTickets));
 
-        System.out.println("Loaded event into edit window: " + name + " (" + venue + ", " + day + ")");
+        log.info("Loaded event into edit window: " + name + " (" + venue + ", " + day + ")");
     }
 
     // Triggered when the user clicks the 'Update' button
@@ -44,17 +55,17 @@ public class EditEventController {
             statusLabel.setText("All fields are required.");
             showAlert(Alert.AlertType.ERROR, "Validation Error", "All fields are required.");
 
-            System.out.println("Update failed: Some input fields were left blank.");
+            log.warn("Update failed: Some input fields were left blank.");
             return;
         }
         List<String> validDays = Arrays.asList("Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun");
         if (!validDays.contains(day)) {
-            System.out.println("Invalid day. Please enter a valid day abbreviation (e.g., Mon, Tue, Wed...).");
+            log.warn("Invalid day. Please enter a valid day abbreviation (e.g., Mon, Tue, Wed...).");
             return;
         }
 
         try {
-            double price = Double.parseDouble(priceStr);
+            Money price = Money.parse(priceStr);
             int capacity = Integer.parseInt(capStr);
             int sold = Integer.parseInt(soldTicketsField.getText());
             //here we will check that admin cant update the capacity less than the sold tickets
@@ -64,50 +75,54 @@ public class EditEventController {
                 statusLabel.setText("Total tickets cannot be less than sold tickets (" + sold + ").");
                 return;
             }
-            if (price <= 0) {
+            if (!price.isPositive()) {
                 showAlert(Alert.AlertType.ERROR, "Validation Error", "Price must be greater than 0.");
 
                 statusLabel.setText("Price must be greater than 0.");
                 return;
             }
 
-            String updateSQL = "UPDATE events SET name = ?, venue = ?, day = ?, price = ?, totalTickets = ? WHERE id = ?";
-            try (Connection conn = DBUtil.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(updateSQL)) {
-
-                stmt.setString(1, name);
-                stmt.setString(2, venue);
-                stmt.setString(3, day);
-                stmt.setDouble(4, price);
-                stmt.setInt(5, capacity);
-                stmt.setInt(6, eventId);
-                stmt.executeUpdate();
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Event updated successfully.");
+            tasks.run(() -> updateEvent(name, venue, day, price, capacity), updated -> {
+                if (!updated) {
+                    // Tickets were sold while this window was open
+                    showAlert(Alert.AlertType.ERROR, "Validation Error", "Capacity cannot be less than sold tickets.");
 
-                System.out.println("Event updated successfully: " + name + " [" + eventId + "]");
-            }
+                    statusLabel.setText("Total tickets cannot be less than sold tickets, which changed after this window opened.");
+                    log.warn("Update of event " + eventId + " refused: capacity " + capacity + " below sold tickets");
+                    return;
+                }
+                showAlert(Alert.AlertType.INFORMATION, "Success", "Event updated successfully.");
+                log.info("Event updated successfully: " + name + " [" + eventId + "]");
 
-            // Close the popup window after successful update
-            ((Stage) nameField.getScene().getWindow()).close();
+                // Close the popup window after successful update
+                ((Stage) nameField.getScene().getWindow()).close();
+            }, e -> {
+                log.error("Failed to update event " + eventId, e);
+                statusLabel.setText("Error updating event.");
+                showAlert(Alert.AlertType.ERROR, "Error", "Error updating event.");
+            });
 
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Validation Error", "Price and Capacity must be numeric.");
 
             statusLabel.setText("Price and Capacity must be numeric.");
-            System.out.println("Update failed: Invalid number entered.");
-        } catch (Exception e) {
-            e.printStackTrace();
-            statusLabel.setText("Error updating event.");
-            showAlert(Alert.AlertType.ERROR, "Error", "Error updating event.");
-
-            System.out.println("Update failed: Database exception occurred.");
+            log.warn("Update failed: Invalid number entered.");
         }
     }
 
+    // Runs on a background thread; returns false if more tickets are sold than the new capacity
+    private boolean updateEvent(String name, String venue, String day, Money price, int capacity) throws SQLException {
+        boolean updated = Repositories.getInstance().events().update(eventId, name, venue, day, price, capacity);
+        // Capacity may have changed, so the seat counter has to be reloaded
+        InventoryManager.getInstance().invalidate(eventId);
+        EventCatalog.getInstance().invalidate(eventId);
+        return updated;
+    }
+
     // Triggered when the user clicks the 'Cancel' button
     @FXML
     private void handleCancel() {
-        System.out.println("Edit canceled by user.");
+        log.info("Edit canceled by user.");
         ((Stage) nameField.getScene().getWindow()).close();
     }
     private void showAlert(Alert.AlertType type, String title, String message) {
@@ -0,0 +1,194 @@
+package org.example.eventbookingsystem.controller;
+
+import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.repository.Repositories;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide cache of the event repository, keyed by event id.
+ * Reads are served from an immutable snapshot without touching the repository. Every write path that changes
+ * an event marks its id dirty; the next read reloads just the dirty rows and publishes a new snapshot
+ * with a higher version, so screens can tell at a glance whether anything changed. A separate text version only
+ * moves when an event is added or removed or its name or venue changes, so caches built from the text, like the
+ * search index, survive the seat counts changing under them.
+ * A full reload happens on first use and whenever the snapshot is older than the configured maximum age,
+ * which picks up changes made by other terminals sharing the database.
+ * Events handed out by the catalog are shared between screens and must not be modified.
+ */
+public class EventCatalog {
+
+    private static final long MAX_AGE_MILLIS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("eventbooking.catalogMaxAgeSeconds", 30L));
+
+    private static final EventCatalog instance = new EventCatalog();
+
+    /**
+     * One published state of the catalog. Neither the map nor its events are changed after publication.
+     *
+     * @param version     increases by one with every published snapshot
+     * @param textVersion increases only when an event is added or removed or its name or venue changes
+     * @param loadedAt    when the last full reload happened (epoch milliseconds)
+     * @param events      every event by id, in id order
+     */
+    public record Snapshot(long version, long textVersion, long loadedAt, Map<Integer, Event> events) {
+    }
+
+    private volatile Snapshot current;
+    // Events changed since the current snapshot was published
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean fullReloadNeeded = true;
+
+    private EventCatalog() {
+    }
+
+    public static EventCatalog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns an up-to-date snapshot, reloading only what changed since the last read.
+     */
+    public Snapshot snapshot() throws SQLException {
+        Snapshot snapshot = current;
+        if (snapshot != null && !fullReloadNeeded && dirty.isEmpty()
+                && System.currentTimeMillis() - snapshot.loadedAt() < MAX_AGE_MILLIS) {
+            return snapshot;
+        }
+        return refresh();
+    }
+
+    /**
+     * Returns the enabled events in id order.
+     */
+    public List<Event> getEnabledEvents() throws SQLException {
+        List<Event> enabled = new ArrayList<>();
+        for (Event event : snapshot().events().values()) {
+            if (event.isEnabled()) {
+                enabled.add(event);
+            }
+        }
+        return enabled;
+    }
+
+    /**
+     * Returns every event, enabled or not, in id order.
+     */
+    public List<Event> getAllEvents() throws SQLException {
+        return List.copyOf(snapshot().events().values());
+    }
+
+    /**
+     * Returns the event with the given id, or null if there is none.
+     */
+    public Event getEvent(int eventId) throws SQLException {
+        return snapshot().events().get(eventId);
+    }
+
+    // Version of the last published snapshot, 0 before the first load
+    public long getVersion() {
+        Snapshot snapshot = current;
+        return snapshot == null ? 0 : snapshot.version();
+    }
+
+    /**
+     * Marks one event as changed. Call after any write that inserts, updates or deletes the event's row.
+     */
+    public void invalidate(int eventId) {
+        dirty.add(eventId);
+    }
+
+    /**
+     * Marks the whole catalog as changed, for writes that touch many events at once.
+     */
+    public void invalidateAll() {
+        fullReloadNeeded = true;
+    }
+
+    // Only one thread reloads at a time; others arriving meanwhile see its result
+    private synchronized Snapshot refresh() throws SQLException {
+        Snapshot snapshot = current;
+        long now = System.currentTimeMillis();
+        boolean full = snapshot == null || fullReloadNeeded || now - snapshot.loadedAt() >= MAX_AGE_MILLIS;
+
+        if (!full && dirty.isEmpty()) {
+            return snapshot;
+        }
+
+        // Clear the marks before reading: a write committed during the read marks its row again
+        Map<Integer, Event> events;
+        long loadedAt;
+        boolean textChanged;
+        if (full) {
+            fullReloadNeeded = false;
+            dirty.clear();
+            events = new TreeMap<>();
+            try {
+                for (Event event : Repositories.getInstance().events().findAll()) {
+                    events.put(event.getId(), event);
+                }
+            } catch (SQLException e) {
+                fullReloadNeeded = true;
+                throw e;
+            }
+            loadedAt = now;
+            textChanged = snapshot == null || snapshot.events().size() != events.size()
+                    || !sameText(snapshot.events(), events, events.keySet());
+        } else {
+            List<Integer> changed = new ArrayList<>(dirty);
+            dirty.removeAll(changed);
+            events = new TreeMap<>(snapshot.events());
+            try {
+                reloadRows(changed, events);
+            } catch (SQLException e) {
+                dirty.addAll(changed);
+                throw e;
+            }
+            loadedAt = snapshot.loadedAt();
+            textChanged = !sameText(snapshot.events(), events, changed);
+        }
+
+        long version = snapshot == null ? 1 : snapshot.version() + 1;
+        long textVersion = snapshot == null ? 1 : snapshot.textVersion() + (textChanged ? 1 : 0);
+        Snapshot published = new Snapshot(version, textVersion, loadedAt, Collections.unmodifiableMap(events));
+        current = published;
+        return published;
+    }
+
+    // True if each of the ids is missing from both maps or has the same name and venue in both
+    private static boolean sameText(Map<Integer, Event> before, Map<Integer, Event> after, Collection<Integer> ids) {
+        for (Integer id : ids) {
+            Event old = before.get(id);
+            Event now = after.get(id);
+            if (old == null || now == null) {
+                if (old != now) {
+                    return false;
+                }
+            } else if (!Objects.equals(old.getName(), now.getName()) || !Objects.equals(old.getVenue(), now.getVenue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Replaces the given rows in the map; rows that no longer exist are removed
+    private void reloadRows(List<Integer> ids, Map<Integer, Event> events) throws SQLException {
+        List<Event> reloaded = Repositories.getInstance().events().findByIds(ids);
+        for (Integer id : ids) {
+            events.remove(id);
+        }
+        for (Event event : reloaded) {
+            events.put(event.getId(), event);
+        }
+    }
+}
@@ -1,43 +1,74 @@
 package org.example.eventbookingsystem.controller;
 
+import javafx.animation.PauseTransition;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.EventRegistry;
+import org.example.eventbookingsystem.model.Money;
 import org.example.eventbookingsystem.model.User;
-import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.repository.EventRepository;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.AsyncDB;
+import org.example.eventbookingsystem.utilities.ListDiff;
+import org.example.eventbookingsystem.utilities.Log;
+import org.example.eventbookingsystem.utilities.UiTasks;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.example.eventbookingsystem.utilities.PasswordEncryption;
 import org.example.eventbookingsystem.utilities.Session;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
 public class EventController {
 
+    private static final Log log = Log.get(EventController.class);
+
+    // How long typing must pause before the search runs, overridable with -D at launch
+    private static final Duration SEARCH_DELAY = Duration.millis(Long.getLong("eventbooking.searchDelayMillis", 100L));
+
     @FXML
     private TableView<Event> eventTable;
     @FXML private Label welcomeLabel;
     @FXML private TableColumn<Event, String> nameColumn;
     @FXML private TableColumn<Event, String> venueColumn;
     @FXML private TableColumn<Event, String> dayColumn;
-    @FXML private TableColumn<Event, Double> priceColumn;
-    @FXML private TableColumn<Event, Integer> soldTicketsColumn;
-    @FXML private TableColumn<Event, Integer> totalTicketsColumn;
-    @FXML private TableColumn<Event, Integer> availableTicketsColumn;
+    @FXML private TableColumn<Event, Money> priceColumn;
+    @FXML private TableColumn<Event, Number> soldTicketsColumn;
+    @FXML private TableColumn<Event, Number> totalTicketsColumn;
+    @FXML private TableColumn<Event, Number> availableTicketsColumn;
+    @FXML private TextField searchField;
 
     private final ObservableList<Event> eventList = FXCollections.observableArrayList();
+    // What the table shows: eventList narrowed to the search matches, in the table's sort order
+    private final FilteredList<Event> filteredEvents = new FilteredList<>(eventList);
+    private final SortedList<Event> sortedEvents = new SortedList<>(filteredEvents);
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+    private EventSearchIndex searchIndex;
     private User currentUser;
+    private final Consumer<Set<Integer>> holdListener = this::onHoldsReleased;
+    private final UiTasks tasks = new UiTasks();
+    // Catalog version currently shown in the table
+    private long shownVersion;
+
+    // A catalog snapshot and its search index, loaded together in the background
+    private record Loaded(EventCatalog.Snapshot snapshot, EventSearchIndex index) {
+    }
 
     @FXML private Button cartButton;
     @FXML private Button logoutButton;
@@ -50,49 +81,85 @@ public class EventController {
      */
     @FXML
     public void initialize() {
-        loadEventsFromDatIfNeeded(); // Only inserts if DB is empty
+        tasks.attach(eventTable);
         setupTableColumns();
-        loadEventsFromDB();
+        sortedEvents.comparatorProperty().bind(eventTable.comparatorProperty());
+        eventTable.setItems(sortedEvents);
+        setupSearch();
+        tasks.runLatest("events", () -> {
+            loadEventsFromDatIfNeeded(); // Only inserts if DB is empty
+            return loadCatalog();
+        }, this::showEvents);
 
         if (Session.isAdmin()) {
             cartButton.setVisible(false);
             disableEventButton.setVisible(true);
             enableEventButton.setVisible(true);
-            System.out.println("Logged in as Admin: showing enable/disable buttons");
+            log.info("Logged in as Admin: showing enable/disable buttons");
         } else {
             cartButton.setVisible(true);
             disableEventButton.setVisible(false);
             enableEventButton.setVisible(false);
-            System.out.println("Logged in as User: showing cart button");
+            log.info("Logged in as User: showing cart button");
         }
 
         setupRowClick();
+        SeatHoldSweeper.getInstance().addListener(holdListener);
+    }
+
+    // Shows seats freed by expired cart holds, until this window is closed
+    private void onHoldsReleased(Set<Integer> eventIds) {
+        if (eventTable.getScene() == null || eventTable.getScene().getWindow() == null
+                || !eventTable.getScene().getWindow().isShowing()) {
+            SeatHoldSweeper.getInstance().removeListener(holdListener);
+            return;
+        }
+        loadEventsFromDB();
     }
 
     /**
      * Binds event properties to respective table columns.
+     * Cells observe the properties directly, so an in-place update repaints only the cells it touches.
      */
     private void setupTableColumns() {
-        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        venueColumn.setCellValueFactory(new PropertyValueFactory<>("venue"));
-        dayColumn.setCellValueFactory(new PropertyValueFactory<>("day"));
-        priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
-        soldTicketsColumn.setCellValueFactory(new PropertyValueFactory<>("soldTickets"));
-        totalTicketsColumn.setCellValueFactory(new PropertyValueFactory<>("totalTickets"));
-        availableTicketsColumn.setCellValueFactory(new PropertyValueFactory<>("availableTickets"));
-        System.out.println("Table columns mapped to event properties.");
+        nameColumn.setCellValueFactory(cell -> cell.getValue().nameProperty());
+        venueColumn.setCellValueFactory(cell -> cell.getValue().venueProperty());
+        dayColumn.setCellValueFactory(cell -> cell.getValue().dayProperty());
+        priceColumn.setCellValueFactory(cell -> cell.getValue().priceProperty());
+        soldTicketsColumn.setCellValueFactory(cell -> cell.getValue().soldTicketsProperty());
+        totalTicketsColumn.setCellValueFactory(cell -> cell.getValue().totalTicketsProperty());
+        availableTicketsColumn.setCellValueFactory(cell -> cell.getValue().availableTicketsProperty());
+        log.debug("Table columns mapped to event properties.");
+    }
+
+    /**
+     * Filters the table as the user types, once typing pauses.
+     * Matches come from the in-memory search index, so no keystroke reaches the database.
+     */
+    private void setupSearch() {
+        searchDelay.setOnFinished(e -> applySearch());
+        searchField.textProperty().addListener((obs, oldText, text) -> searchDelay.playFromStart());
+    }
+
+    private void applySearch() {
+        if (searchIndex == null) {
+            return; // The first load applies the search once the index is ready
+        }
+        long start = System.nanoTime();
+        filteredEvents.setPredicate(searchIndex.matcher(searchField.getText()));
+        log.debug(() -> "Search \"" + searchField.getText() + "\" matched " + filteredEvents.size() + " of "
+                + eventList.size() + " events in " + (System.nanoTime() - start) / 1000 + " us");
     }
 
     /**
      * Reads from `events.dat` and populates the DB only if no events exist.
      */
     private void loadEventsFromDatIfNeeded() {
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement countStmt = conn.prepareStatement("SELECT COUNT(*) FROM events")) {
-
-            ResultSet rs = countStmt.executeQuery();
-            if (rs.getInt(1) == 0) {
-                System.out.println("Database is empty. Loading events from .dat file...");
+        try {
+            EventRepository repository = Repositories.getInstance().events();
+            if (repository.count() == 0) {
+                log.info("Database is empty. Loading events from .dat file...");
+                List<Event> events = new ArrayList<>();
                 try (BufferedReader reader = new BufferedReader(new FileReader("src/main/resources/events.dat"))) {
                     String line;
                     while ((line = reader.readLine()) != null) {
@@ -101,59 +168,58 @@ public class EventController {
                             String name = parts[0];
                             String venue = parts[1];
                             String day = parts[2];
-                            double price = Double.parseDouble(parts[3]);
+                            Money price = Money.parse(parts[3]);
                             int soldTickets = Integer.parseInt(parts[4]);
                             int totalTickets = Integer.parseInt(parts[5]);
-
-                            try (PreparedStatement insertStmt = conn.prepareStatement(
-                                    "INSERT INTO events (name, venue, day, price, soldTickets, totalTickets, enabled) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
-                                insertStmt.setString(1, name);
-                                insertStmt.setString(2, venue);
-                                insertStmt.setString(3, day);
-                                insertStmt.setDouble(4, price);
-                                insertStmt.setInt(5, soldTickets);
-                                insertStmt.setInt(6, totalTickets);
-                                insertStmt.setBoolean(7, true);
-                                insertStmt.executeUpdate();
-                            }
+                            // The id is assigned when the event is stored
+                            events.add(new Event(0, name, venue, day, price, soldTickets, totalTickets, true));
                         }
                     }
                 }
-                System.out.println("Events loaded from file into the database.");
+                repository.addAll(events);
+                EventCatalog.getInstance().invalidateAll();
+                log.info("Events loaded from file into the database.");
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to load events from file", e);
         }
     }
 
     /**
-     * Loads all enabled events from the database and displays them in the table.
+     * Loads all enabled events from the event catalog in the background and displays them in the table.
+     * The catalog only goes to the database for events that changed since the last read.
      */
     public void loadEventsFromDB() {
-        eventList.clear();
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM events WHERE enabled = 1");
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                Event event = new Event(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("venue"),
-                        rs.getString("day"),
-                        rs.getDouble("price"),
-                        rs.getInt("soldTickets"),
-                        rs.getInt("totalTickets"),
-                        rs.getBoolean("enabled")
-                );
-                eventList.add(event);
-            }
-            eventTable.setItems(eventList);
-            System.out.println("Enabled events loaded from database.");
+        tasks.runLatest("events", this::loadCatalog, this::showEvents);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Runs on a background thread; the index is only rebuilt when the catalog changed
+    private Loaded loadCatalog() throws SQLException {
+        EventCatalog.Snapshot snapshot = EventCatalog.getInstance().snapshot();
+        return new Loaded(snapshot, EventSearchIndex.forSnapshot(snapshot));
+    }
+
+    private void showEvents(Loaded loaded) {
+        EventCatalog.Snapshot snapshot = loaded.snapshot();
+        if (snapshot.version() == shownVersion) {
+            return; // Nothing changed since the table was last filled
         }
+        shownVersion = snapshot.version();
+        List<Event> events = new ArrayList<>();
+        for (Event event : snapshot.events().values()) {
+            if (event.isEnabled()) {
+                events.add(event);
+            }
+        }
+
+        // Apply only what changed, so the selection and scroll position stay put.
+        // Rows are the registry's shared events, which carts and ticket windows hold too; catalog events are never modified.
+        ListDiff.Result diff = ListDiff.apply(eventList, events, Event::getId, EventRegistry.getInstance()::resolve, Event::updateFrom);
+        log.debug("Event table synced with catalog version " + shownVersion + ": " + diff);
+
+        // Rows added by the sync are only found by an index that knows them
+        searchIndex = loaded.index();
+        applySearch();
     }
 
     /**
@@ -163,25 +229,13 @@ public class EventController {
     private void handleDisableEvent() {
         Event selected = eventTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            System.out.println("Disabling event: " + selected.getName());
-            String query = "UPDATE events SET enabled = 0 WHERE id = ?";
-            String removeFromCartQuery = "DELETE FROM cart WHERE event_id = ?";
-
-            try (Connection conn = DBUtil.getConnection()){
-                 try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setInt(1, selected.getId());
-                stmt.executeUpdate();
-            }
-
-            // Remove this event from all user carts
-            try (PreparedStatement stmt2 = conn.prepareStatement(removeFromCartQuery)) {
-                stmt2.setInt(1, selected.getId());
-                stmt2.executeUpdate();
-            }
-                loadEventsFromDB();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            log.info("Disabling event: " + selected.getName());
+            tasks.run(() -> {
+                setEnabled(selected.getId(), false);
+                // Remove this event from all user carts and release the held seats
+                CartManager.getInstance().removeEventFromAllCarts(selected.getId());
+                return null;
+            }, done -> loadEventsFromDB());
         }
     }
 
@@ -192,19 +246,21 @@ public class EventController {
     private void handleEnableEvent() {
         Event selected = eventTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            System.out.println("Enabling event: " + selected.getName());
-            String query = "UPDATE events SET enabled = 1 WHERE id = ?";
-            try (Connection conn = DBUtil.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setInt(1, selected.getId());
-                stmt.executeUpdate();
-                loadEventsFromDB();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            log.info("Enabling event: " + selected.getName());
+            tasks.run(() -> {
+                setEnabled(selected.getId(), true);
+                return null;
+            }, done -> loadEventsFromDB());
         }
     }
 
+    // Runs on a background thread
+    private void setEnabled(int eventId, boolean enabled) throws SQLException {
+        Repositories.getInstance().events().setEnabled(eventId, enabled);
+        InventoryManager.getInstance().invalidate(eventId);
+        EventCatalog.getInstance().invalidate(eventId);
+    }
+
     /**
      * Opens ticket window on double-clicking a row.
      */
@@ -212,7 +268,7 @@ public class EventController {
         eventTable.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && !eventTable.getSelectionModel().isEmpty()) {
                 Event selectedEvent = eventTable.getSelectionModel().getSelectedItem();
-                System.out.println("Opening ticket window for: " + selectedEvent.getName());
+                log.info("Opening ticket window for: " + selectedEvent.getName());
                 openTicketWindow(selectedEvent);
             }
         });
@@ -233,7 +289,7 @@ public class EventController {
             stage.setScene(new Scene(root));
             stage.show();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to open ticket window", e);
         }
     }
 
@@ -252,9 +308,9 @@ public class EventController {
             stage.setTitle("Your Cart");
             stage.setScene(new Scene(root));
             stage.show();
-            System.out.println("Cart window opened.");
+            log.info("Cart window opened.");
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Failed to open cart window", e);
         }
     }
 
@@ -262,7 +318,7 @@ public class EventController {
         this.currentUser = user;
         if (welcomeLabel != null && user.getPreferredName() != null) {
             welcomeLabel.setText("Welcome, " + user.getPreferredName() + "!");
-            System.out.println("Dashboard loaded for: " + user.getPreferredName());
+            log.info("Dashboard loaded for: " + user.getPreferredName());
         }
     }
 
@@ -271,8 +327,14 @@ public class EventController {
      */
     @FXML
     private void handleLogout() {
+        String username = Session.getLoggedInUsername();
+        // Not a window task: the window is gone by the time it finishes, and the cart must still be written
+        AsyncDB.supply(() -> {
+            CartManager.getInstance().flushPendingWrites(username);
+            return null;
+        });
         Session.clear();
-        System.out.println("User logged out. Returning to login screen.");
+        log.info("User logged out. Returning to login screen.");
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/eventbookingsystem/login_signup.fxml"));
             Parent loginRoot = loader.load();
@@ -284,7 +346,7 @@ public class EventController {
             Stage currentStage = (Stage) eventTable.getScene().getWindow();
             currentStage.close();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to return to login screen", e);
         }
     }
 
@@ -300,9 +362,9 @@ public class EventController {
             orderStage.setTitle("Order History");
             orderStage.setScene(new Scene(orderRoot));
             orderStage.show();
-            System.out.println("Order history window opened.");
+            log.info("Order history window opened.");
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Failed to open order history window", e);
         }
     }
 
@@ -319,49 +381,51 @@ public class EventController {
         dialog.showAndWait().ifPresent(newPassword -> {
             if (newPassword.length() < 4) {
                 showAlert("Password must be at least 4 characters.");
-                System.out.println("Password update failed: too short.");
+                log.warn("Password update failed: too short.");
             } else {
                 String encrypted = PasswordEncryption.encryptPassword(newPassword);
-                updatePasswordInDB(Session.getLoggedInUsername(), encrypted);
-                showAlert("Password changed successfully.");
-                Session.clear();
-                System.out.println("Password changed. Logging user out for security.");
-
-                try {
-                    FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/eventbookingsystem/login_signup.fxml"));
-                    Parent root = loader.load();
-                    Stage loginStage = new Stage();
-                    loginStage.setTitle("Login");
-                    loginStage.setScene(new Scene(root));
-                    loginStage.show();
-
-                    Stage currentStage = (Stage) logoutButton.getScene().getWindow();
-                    currentStage.close();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    showAlert("Failed to return to login screen.");
-                }
+                String username = Session.getLoggedInUsername();
+                tasks.run(() -> {
+                    updatePasswordInDB(username, encrypted);
+                    return null;
+                }, done -> returnToLoginAfterPasswordChange(), error -> {
+                    log.error("Failed to update password", error);
+                    showAlert("Error updating password.");
+                });
             }
         });
     }
 
-    /**
-     * Updates password in the DB for a given user.
-     */
-    private void updatePasswordInDB(String username, String encryptedPassword) {
-        String sql = "UPDATE users SET password = ? WHERE username = ?";
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, encryptedPassword);
-            stmt.setString(2, username);
-            stmt.executeUpdate();
-            System.out.println("Password updated in DB for user: " + username);
+    // Logs the user out once the new password is stored
+    private void returnToLoginAfterPasswordChange() {
+        showAlert("Password changed successfully.");
+        Session.clear();
+        log.info("Password changed. Logging user out for security.");
+
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/eventbookingsystem/login_signup.fxml"));
+            Parent root = loader.load();
+            Stage loginStage = new Stage();
+            loginStage.setTitle("Login");
+            loginStage.setScene(new Scene(root));
+            loginStage.show();
+
+            Stage currentStage = (Stage) logoutButton.getScene().getWindow();
+            currentStage.close();
         } catch (Exception e) {
-            e.printStackTrace();
-            showAlert("Error updating password.");
+            log.error("Failed to return to login screen", e);
+            showAlert("Failed to return to login screen.");
         }
     }
 
+    /**
+     * Updates password in the DB for a given user. Runs on a background thread.
+     */
+    private void updatePasswordInDB(String username, String encryptedPassword) throws SQLException {
+        Repositories.getInstance().users().updatePassword(username, encryptedPassword);
+        log.info("Password updated in DB for user: " + username);
+    }
+
     private void showAlert(String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("Change Password");
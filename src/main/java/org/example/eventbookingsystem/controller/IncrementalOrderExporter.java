@@ -0,0 +1,151 @@
+package org.example.eventbookingsystem.controller;
+
+import org.example.eventbookingsystem.repository.OrderRepository;
+import org.example.eventbookingsystem.repository.OrderRepository.ExportCheckpoint;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Exports only the orders placed since the previous run into a directory of numbered segment files
+ * (orders-000001.csv, orders-000002.csv, ...), so a nightly export costs time in proportion to the day's sales.
+ * <p>
+ * The key (dateTime, orderNumber) of the newest exported order is kept per directory as an export
+ * checkpoint in the order repository, and each run appends the orders after it, oldest first, as a new segment.
+ * Every segment is also listed in the directory's manifest.jsonl with its row count and key range, which is
+ * what downstream readers should follow. A segment only appears under its final name once it is complete;
+ * if the manifest is ahead of the database after a crash, the manifest wins, so no order is written twice.
+ * <p>
+ * Orders younger than a settle period (60 seconds, {@code -Deventbooking.export.settleSeconds}) are left for
+ * the next run: a checkout still committing with an older timestamp would otherwise land behind the checkpoint.
+ */
+public class IncrementalOrderExporter {
+
+    private static final Log log = Log.get(IncrementalOrderExporter.class);
+
+    public static final String MANIFEST = "manifest.jsonl";
+    private static final long SETTLE_SECONDS = Long.getLong("eventbooking.export.settleSeconds", 60L);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Pattern SEGMENT = Pattern.compile("\"segment\":(\\d+)");
+    private static final Pattern LAST_DATE_TIME = Pattern.compile("\"lastDateTime\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern LAST_ORDER_NUMBER = Pattern.compile("\"lastOrderNumber\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    /**
+     * One file written by a run.
+     *
+     * @param number position in the directory's sequence, starting at 1
+     * @param file   file name inside the directory
+     * @param first  key of the oldest order in the segment
+     * @param last   key of the newest order in the segment; the next run starts after it
+     */
+    public record Segment(int number, String file, long rows, OrderRepository.Cursor first, OrderRepository.Cursor last) {
+    }
+
+    private IncrementalOrderExporter() {
+    }
+
+    /**
+     * Writes the orders placed since the last run into a new segment in the directory.
+     *
+     * @return the new segment, or null if there were no new orders
+     */
+    public static Segment exportNew(Path dir, OrderExporter.Options options, OrderExporter.Progress progress)
+            throws SQLException, IOException {
+        Files.createDirectories(dir);
+        OrderRepository orders = Repositories.getInstance().orders();
+        String destination = dir.toAbsolutePath().normalize().toString();
+        ExportCheckpoint checkpoint = later(orders.findExportCheckpoint(destination), readManifestTail(dir));
+
+        int number = checkpoint == null ? 1 : checkpoint.segment() + 1;
+        String name = String.format("orders-%06d.%s%s", number, options.format().getExtension(), options.gzip() ? ".gz" : "");
+        Path target = dir.resolve(name);
+        Path partial = dir.resolve(name + ".part");
+        String cutoff = LocalDateTime.now().minusSeconds(SETTLE_SECONDS).format(TIMESTAMP);
+
+        OrderRepository.Cursor after = checkpoint == null ? null : checkpoint.last();
+        OrderExporter.Written written = OrderExporter.writeFile(
+                handler -> orders.scanOldestFirst(after, cutoff, handler), partial, options, 0, progress);
+        if (written.rows() == 0) {
+            Files.deleteIfExists(partial);
+            log.info("No new orders to export to " + destination);
+            return null;
+        }
+
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Segment segment = new Segment(number, name, written.rows(), written.first(), written.last());
+        appendManifest(dir, segment);
+        orders.saveExportCheckpoint(destination, new ExportCheckpoint(segment.number(), segment.last()),
+                LocalDateTime.now().format(TIMESTAMP));
+        log.info("Exported " + segment.rows() + " new orders to " + target);
+        return segment;
+    }
+
+    // One JSON object per line, appended, so earlier entries are never rewritten
+    private static void appendManifest(Path dir, Segment segment) throws IOException {
+        StringBuilder line = new StringBuilder(256)
+                .append("{\"segment\":").append(segment.number())
+                .append(",\"file\":");
+        OrderExporter.appendJsonText(line, segment.file());
+        line.append(",\"rows\":").append(segment.rows()).append(",\"firstDateTime\":");
+        OrderExporter.appendJsonText(line, segment.first().dateTime());
+        line.append(",\"firstOrderNumber\":");
+        OrderExporter.appendJsonText(line, segment.first().orderNumber());
+        line.append(",\"lastDateTime\":");
+        OrderExporter.appendJsonText(line, segment.last().dateTime());
+        line.append(",\"lastOrderNumber\":");
+        OrderExporter.appendJsonText(line, segment.last().orderNumber());
+        line.append(",\"createdAt\":");
+        OrderExporter.appendJsonText(line, LocalDateTime.now().format(TIMESTAMP));
+        line.append("}\n");
+        Files.writeString(dir.resolve(MANIFEST), line, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // The last complete manifest entry; a line cut short by a crash is skipped
+    private static ExportCheckpoint readManifestTail(Path dir) throws IOException {
+        Path manifest = dir.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            String line = lines.get(i);
+            Matcher segment = SEGMENT.matcher(line);
+            Matcher dateTime = LAST_DATE_TIME.matcher(line);
+            Matcher orderNumber = LAST_ORDER_NUMBER.matcher(line);
+            if (line.endsWith("}") && segment.find() && dateTime.find() && orderNumber.find()) {
+                return new ExportCheckpoint(Integer.parseInt(segment.group(1)),
+                        new OrderRepository.Cursor(unescape(dateTime.group(1)), unescape(orderNumber.group(1))));
+            }
+        }
+        return null;
+    }
+
+    private static ExportCheckpoint later(ExportCheckpoint a, ExportCheckpoint b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return b.segment() > a.segment() ? b : a;
+    }
+
+    // Order keys never contain escapes in practice; this covers the ones appendJsonText produces for quotes
+    private static String unescape(String value) {
+        return value.replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.eventbookingsystem.controller;
+
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns seat inventory for every event.
+ * Seats are taken through the event repository, which only takes them while enough remain,
+ * so two terminals can never oversell the same event.
+ * An in-memory counter per event mirrors the remaining seats and rejects requests for sold-out events
+ * before they reach the repository; the repository always has the final say.
+ */
+public class InventoryManager {
+
+    private static final Log log = Log.get(InventoryManager.class);
+
+    /**
+     * Outcome of an inventory operation.
+     */
+    public enum Status {
+        RESERVED,
+        RELEASED,
+        INSUFFICIENT_INVENTORY,
+        EVENT_UNAVAILABLE,
+        ERROR
+    }
+
+    /**
+     * Typed result of a reservation or release.
+     *
+     * @param status    what happened
+     * @param eventId   the event involved
+     * @param quantity  number of seats requested or released
+     * @param available seats left after the operation, as far as is known (-1 if unknown)
+     */
+    public record Result(Status status, int eventId, int quantity, int available) {
+        public boolean isSuccess() {
+            return status == Status.RESERVED || status == Status.RELEASED;
+        }
+    }
+
+    private static final InventoryManager instance = new InventoryManager();
+
+    // Remaining seats per event id; seeded lazily from the repository
+    private final ConcurrentHashMap<Integer, AtomicInteger> availableSeats = new ConcurrentHashMap<>();
+
+    private InventoryManager() {
+    }
+
+    public static InventoryManager getInstance() {
+        return instance;
+    }
+
+    /**
+     * Atomically takes seats for an event.
+     * Never oversells: the repository only accepts the update if enough seats remain and the event is enabled.
+     */
+    public Result reserve(int eventId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0.");
+        }
+
+        AtomicInteger counter;
+        try {
+            counter = counterFor(eventId);
+        } catch (SQLException e) {
+            log.error("Failed to read inventory for eventId " + eventId, e);
+            return new Result(Status.ERROR, eventId, quantity, -1);
+        }
+        if (counter == null) {
+            return new Result(Status.EVENT_UNAVAILABLE, eventId, quantity, 0);
+        }
+
+        // Claim the seats in memory first; a stale counter gets one refresh from the repository
+        if (!tryTake(counter, quantity)) {
+            try {
+                counter = refresh(eventId);
+            } catch (SQLException e) {
+                log.error("Failed to refresh inventory for eventId " + eventId, e);
+                return new Result(Status.ERROR, eventId, quantity, -1);
+            }
+            if (counter == null) {
+                return new Result(Status.EVENT_UNAVAILABLE, eventId, quantity, 0);
+            }
+            if (!tryTake(counter, quantity)) {
+                return new Result(Status.INSUFFICIENT_INVENTORY, eventId, quantity, counter.get());
+            }
+        }
+
+        try {
+            if (Repositories.getInstance().events().reserveSeats(eventId, quantity)) {
+                EventCatalog.getInstance().invalidate(eventId);
+                log.debug("Reserved " + quantity + " seats for eventId " + eventId);
+                return new Result(Status.RESERVED, eventId, quantity, counter.get());
+            }
+
+            // Another terminal got there first; resync the mirror with the repository
+            counter.addAndGet(quantity);
+            AtomicInteger actual = refresh(eventId);
+            if (actual == null) {
+                return new Result(Status.EVENT_UNAVAILABLE, eventId, quantity, 0);
+            }
+            return new Result(Status.INSUFFICIENT_INVENTORY, eventId, quantity, actual.get());
+        } catch (SQLException e) {
+            counter.addAndGet(quantity);
+            log.error("Failed to reserve " + quantity + " seats for eventId " + eventId, e);
+            return new Result(Status.ERROR, eventId, quantity, -1);
+        }
+    }
+
+    /**
+     * Gives seats back to an event, never letting soldTickets drop below zero.
+     */
+    public Result release(int eventId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0.");
+        }
+        try {
+            Repositories.getInstance().events().releaseSeats(eventId, quantity);
+            // The clamp above may differ from a plain add, so reseed on next use
+            invalidate(eventId);
+            EventCatalog.getInstance().invalidate(eventId);
+            log.debug("Released " + quantity + " seats for eventId " + eventId);
+            return new Result(Status.RELEASED, eventId, quantity, -1);
+        } catch (SQLException e) {
+            log.error("Failed to release " + quantity + " seats for eventId " + eventId, e);
+            return new Result(Status.ERROR, eventId, quantity, -1);
+        }
+    }
+
+    /**
+     * Returns the seats left for an event, from the mirror when possible.
+     */
+    public int getAvailable(int eventId) {
+        try {
+            AtomicInteger counter = counterFor(eventId);
+            return counter == null ? 0 : counter.get();
+        } catch (SQLException e) {
+            log.error("Failed to read inventory for eventId " + eventId, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Forgets the mirrored count for an event.
+     * Call after any write that changes soldTickets, totalTickets or enabled outside this class.
+     */
+    public void invalidate(int eventId) {
+        availableSeats.remove(eventId);
+    }
+
+    // Decrements the counter only if enough seats remain
+    private boolean tryTake(AtomicInteger counter, int quantity) {
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private AtomicInteger counterFor(int eventId) throws SQLException {
+        AtomicInteger counter = availableSeats.get(eventId);
+        return counter != null ? counter : refresh(eventId);
+    }
+
+    // Reloads remaining seats from the repository; returns null if the event is missing or disabled
+    private AtomicInteger refresh(int eventId) throws SQLException {
+        int available = Repositories.getInstance().events().availableSeats(eventId);
+        if (available < 0) {
+            availableSeats.remove(eventId);
+            return null;
+        }
+        AtomicInteger counter = new AtomicInteger(available);
+        availableSeats.put(eventId, counter);
+        return counter;
+    }
+}
@@ -9,14 +9,20 @@ import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import org.example.eventbookingsystem.model.User;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.repository.UserRepository;
 import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.utilities.Log;
 import org.example.eventbookingsystem.utilities.PasswordEncryption;
 import org.example.eventbookingsystem.utilities.Session;
+import org.example.eventbookingsystem.utilities.UiTasks;
 import java.io.IOException;
-import java.sql.*;
+import java.sql.SQLException;
 
 public class LoginSignUpController {
 
+    private static final Log log = Log.get(LoginSignUpController.class);
+
     @FXML private TextField usernameField;
     @FXML private PasswordField passwordField;
     @FXML private TextField preferredNameField;
@@ -25,26 +31,35 @@ public class LoginSignUpController {
     @FXML private RadioButton signupRadio;
     @FXML private final ToggleGroup loginSignUpToggleGroup = new ToggleGroup();
 
+    private final UiTasks tasks = new UiTasks();
+
+    /**
+     * Outcome of a login or signup: the user on success, otherwise the message to show.
+     */
+    private record AuthResult(User user, String error) {
+    }
+
     /**
      * Sets up the toggle group and manages enabling/disabling the Preferred Name field.
      */
     @FXML
     public void initialize() {
-        System.out.println("Checking and initializing database if needed...");
+        log.info("Checking and initializing database if needed...");
         DBUtil.initializeDatabase();
+        tasks.attach(usernameField);
         loginRadio.setToggleGroup(loginSignUpToggleGroup);
         signupRadio.setToggleGroup(loginSignUpToggleGroup);
         preferredNameField.setDisable(true);
 
         loginSignUpToggleGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> {
             preferredNameField.setDisable(loginRadio.isSelected());
-            System.out.println("Toggle switched: " + (loginRadio.isSelected() ? "Login mode" : "Sign Up mode"));
+            log.info("Toggle switched: " + (loginRadio.isSelected() ? "Login mode" : "Sign Up mode"));
         });
     }
 
     /**
      * Handles login or signup based on selected toggle option.
-     * Validates inputs, communicates with DB, and navigates to dashboard.
+     * Validates inputs, checks the DB in the background, and navigates to dashboard.
      */
     @FXML
     public void handleContinue(ActionEvent event) {
@@ -54,69 +69,73 @@ public class LoginSignUpController {
 
         if (username.isEmpty() || password.isEmpty() || (signupRadio.isSelected() && preferredName.isEmpty())) {
             statusLabel.setText("All fields are required.");
-            System.out.println("Validation failed: Some fields are missing.");
+            log.warn("Validation failed: Some fields are missing.");
             return;
         }
 
-        try (Connection conn = DBUtil.getConnection()) {
-
-            if (loginRadio.isSelected()) {
-                // Check for admin login
-                if (username.equals("admin") && password.equals("Admin321")) {
-                    Session.setLoggedInUsername("admin");
-                    System.out.println("Admin logged in.");
-                    loadAdminDashboard();
-                    return;
-                }
-
-                String encryptedPassword = PasswordEncryption.encryptPassword(password);
-                PreparedStatement stmt = conn.prepareStatement("SELECT * FROM users WHERE username = ? AND password = ?");
-                stmt.setString(1, username);
-                stmt.setString(2, encryptedPassword);
-
-                ResultSet rs = stmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("Login successful for user: " + username);
-                    loadEventsPage(new User(rs.getInt("id"), rs.getString("username"), rs.getString("preferredName")));
-                } else {
-                    statusLabel.setText("Invalid login.");
-                    System.out.println("Login failed: Invalid credentials.");
-                }
-
-            } else {
-                // Signup process
-                PreparedStatement check = conn.prepareStatement("SELECT * FROM users WHERE username = ?");
-                check.setString(1, username);
-                ResultSet rs = check.executeQuery();
-
-                if (rs.next()) {
-                    statusLabel.setText("Username already exists.");
-                    System.out.println("Signup failed: Username already exists.");
-                } else {
-                    String encryptedPassword = PasswordEncryption.encryptPassword(password);
-                    PreparedStatement insert = conn.prepareStatement(
-                            "INSERT INTO users (username, password, preferredName) VALUES (?, ?, ?)",
-                            Statement.RETURN_GENERATED_KEYS
-                    );
-                    insert.setString(1, username);
-                    insert.setString(2, encryptedPassword);
-                    insert.setString(3, preferredName);
-                    insert.executeUpdate();
-
-                    ResultSet generatedKeys = insert.getGeneratedKeys();
-                    if (generatedKeys.next()) {
-                        int userId = generatedKeys.getInt(1);
-                        System.out.println("Signup successful for user: " + username);
-                        loadEventsPage(new User(userId, username, preferredName));
-                    }
-                }
+        if (tasks.busyProperty().get()) {
+            return; // Still checking the previous attempt
+        }
+
+        boolean login = loginRadio.isSelected();
+        if (login && username.equals("admin") && password.equals("Admin321")) {
+            // Check for admin login
+            Session.setLoggedInUsername("admin");
+            log.info("Admin logged in.");
+            try {
+                loadAdminDashboard();
+            } catch (IOException e) {
+                showError(e);
             }
+            return;
+        }
 
-        } catch (SQLException | IOException e) {
-            e.printStackTrace();
-            statusLabel.setText("Error: " + e.getMessage());
-            System.out.println("Exception occurred: " + e.getMessage());
+        statusLabel.setText(login ? "Logging in..." : "Signing up...");
+        tasks.run(() -> login ? logIn(username, password) : signUp(username, password, preferredName), result -> {
+            if (result.user() == null) {
+                statusLabel.setText(result.error());
+                return;
+            }
+            try {
+                loadEventsPage(result.user());
+            } catch (IOException e) {
+                showError(e);
+            }
+        }, this::showError);
+    }
+
+    // Runs on a background thread
+    private AuthResult logIn(String username, String password) throws SQLException {
+        String encryptedPassword = PasswordEncryption.encryptPassword(password);
+        User user = Repositories.getInstance().users().findByCredentials(username, encryptedPassword);
+        if (user != null) {
+            log.info("Login successful for user: " + username);
+            return new AuthResult(user, null);
+        }
+        log.warn("Login failed: Invalid credentials.");
+        return new AuthResult(null, "Invalid login.");
+    }
+
+    // Runs on a background thread
+    private AuthResult signUp(String username, String password, String preferredName) throws SQLException {
+        UserRepository users = Repositories.getInstance().users();
+        if (users.exists(username)) {
+            log.warn("Signup failed: Username already exists.");
+            return new AuthResult(null, "Username already exists.");
+        }
+
+        String encryptedPassword = PasswordEncryption.encryptPassword(password);
+        User user = users.create(username, encryptedPassword, preferredName);
+        if (user != null) {
+            log.info("Signup successful for user: " + username);
+            return new AuthResult(user, null);
         }
+        return new AuthResult(null, "Signup failed.");
+    }
+
+    private void showError(Throwable e) {
+        log.error("Exception occurred: " + e.getMessage(), e);
+        statusLabel.setText("Error: " + e.getMessage());
     }
 
     /**
@@ -124,7 +143,7 @@ public class LoginSignUpController {
      */
     private void loadEventsPage(User user) throws IOException {
         Session.setLoggedInUsername(user.getUsername());
-        System.out.println("Loading event page for: " + user.getUsername());
+        log.info("Loading event page for: " + user.getUsername());
 
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/eventbookingsystem/events.fxml"));
         BorderPane root = loader.load();
@@ -143,7 +162,7 @@ public class LoginSignUpController {
      * Loads the admin dashboard for admin user.
      */
     private void loadAdminDashboard() throws IOException {
-        System.out.println("Redirecting to Admin Dashboard...");
+        log.info("Redirecting to Admin Dashboard...");
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/example/eventbookingsystem/AdminDashboard.fxml"));
         Parent root = loader.load();
         Stage stage = (Stage) usernameField.getScene().getWindow();
@@ -0,0 +1,184 @@
+package org.example.eventbookingsystem.controller;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceDialog;
+import javafx.scene.control.ProgressBar;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+import org.example.eventbookingsystem.utilities.AsyncDB;
+import org.example.eventbookingsystem.utilities.Log;
+import org.example.eventbookingsystem.utilities.UiTasks;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The export flow shared by the order screens: asks for a file (or, for incremental exports, a directory),
+ * runs the export in the background with a progress bar and a cancel button, and reports the outcome.
+ * The progress bar and cancel button stay hidden while no export runs.
+ */
+public class OrderExportDialog {
+
+    private static final Log log = Log.get(OrderExportDialog.class);
+
+    // Offered formats, matched to file extensions by extensionOf
+    private static final String[] FORMATS = {"CSV", "CSV, gzip", "JSON Lines", "JSON Lines, gzip"};
+
+    private final UiTasks tasks;
+    private final ProgressBar progressBar;
+    private final Button cancelButton;
+    private CompletableFuture<?> running;
+
+    // Latest progress from the export thread; the screen picks it up at most once per frame
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicBoolean updateQueued = new AtomicBoolean();
+
+    public OrderExportDialog(UiTasks tasks, ProgressBar progressBar, Button cancelButton) {
+        this.tasks = tasks;
+        this.progressBar = progressBar;
+        this.cancelButton = cancelButton;
+        cancelButton.setOnAction(event -> cancel());
+        showProgress(false);
+    }
+
+    /**
+     * Asks where to save and starts the export.
+     *
+     * @param username    only this user's orders, or null for everyone's
+     * @param initialName suggested file name without extension
+     */
+    public void start(Window owner, String username, String initialName) {
+        if (running != null) {
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Orders");
+        for (String format : FORMATS) {
+            String extension = extensionOf(format);
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter(format + " (*" + extension + ")", "*" + extension));
+        }
+        fileChooser.setInitialFileName(initialName + ".csv");
+
+        File chosen = fileChooser.showSaveDialog(owner);
+        if (chosen == null) {
+            log.info("User cancelled export operation.");
+            return;
+        }
+        File file = withExtension(chosen, fileChooser.getSelectedExtensionFilter());
+        OrderExporter.Options options = OrderExporter.Options.forFile(file.toPath());
+
+        run(() -> OrderExporter.export(username, file.toPath(), options, this::reportProgress),
+                count -> showAlert(Alert.AlertType.INFORMATION, "Export Complete",
+                        count + " orders exported to " + file.getName() + "."));
+    }
+
+    /**
+     * Asks for an export directory and a format, then writes only the orders placed since the last
+     * export to that directory as a new segment. See {@link IncrementalOrderExporter}.
+     */
+    public void startIncremental(Window owner) {
+        if (running != null) {
+            return;
+        }
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Export New Orders To");
+        File dir = directoryChooser.showDialog(owner);
+        if (dir == null) {
+            log.info("User cancelled incremental export.");
+            return;
+        }
+        ChoiceDialog<String> formatDialog = new ChoiceDialog<>(FORMATS[0], FORMATS);
+        formatDialog.setTitle("Export New Orders");
+        formatDialog.setHeaderText(null);
+        formatDialog.setContentText("Segment format:");
+        formatDialog.initOwner(owner);
+        formatDialog.showAndWait().ifPresent(choice -> {
+            OrderExporter.Options options = OrderExporter.Options.forFile(Path.of("orders" + extensionOf(choice)));
+            run(() -> IncrementalOrderExporter.exportNew(dir.toPath(), options, this::reportProgress), segment ->
+                    showAlert(Alert.AlertType.INFORMATION, "Export Complete", segment == null
+                            ? "No new orders since the last export."
+                            : segment.rows() + " new orders exported to " + segment.file() + "."));
+        });
+    }
+
+    private <T> void run(AsyncDB.Work<T> work, Consumer<T> onDone) {
+        written.set(0);
+        total.set(0);
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        showProgress(true);
+        running = tasks.read(work, result -> {
+            running = null;
+            showProgress(false);
+            onDone.accept(result);
+        }, error -> {
+            running = null;
+            showProgress(false);
+            log.error("Failed to export orders", error);
+            showAlert(Alert.AlertType.ERROR, "Export Failed", "Could not export orders: " + error.getMessage());
+        });
+    }
+
+    /**
+     * Stops a running export; the partial file is deleted.
+     */
+    public void cancel() {
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+            showProgress(false);
+            log.info("Export cancelled by user.");
+        }
+    }
+
+    // Runs on the export thread
+    private void reportProgress(long done, long of) {
+        written.set(done);
+        total.set(of);
+        if (updateQueued.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                updateQueued.set(false);
+                if (running != null && total.get() > 0) {
+                    progressBar.setProgress((double) written.get() / total.get());
+                }
+            });
+        }
+    }
+
+    private void showProgress(boolean show) {
+        progressBar.setVisible(show);
+        progressBar.setManaged(show);
+        cancelButton.setVisible(show);
+        cancelButton.setManaged(show);
+    }
+
+    // Adds the selected filter's extension when the typed name has none of the supported ones
+    private static File withExtension(File file, FileChooser.ExtensionFilter filter) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".csv") || name.endsWith(".jsonl") || name.endsWith(".gz") || filter == null) {
+            return file;
+        }
+        return new File(file.getParentFile(), file.getName() + filter.getExtensions().get(0).substring(1));
+    }
+
+    private static String extensionOf(String format) {
+        String extension = format.startsWith("JSON") ? ".jsonl" : ".csv";
+        return format.endsWith("gzip") ? extension + ".gz" : extension;
+    }
+
+    private static void showAlert(Alert.AlertType type, String title, String message) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,330 @@
+package org.example.eventbookingsystem.controller;
+
+import org.example.eventbookingsystem.repository.OrderRepository;
+import org.example.eventbookingsystem.repository.OrderRepository.OrderRow;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes orders from the order repository to a CSV or JSON Lines file, optionally gzip-compressed.
+ * Rows stream from a repository scan, newest first, through a fixed-size NIO buffer into the
+ * file channel, so memory use does not grow with the number of orders and nothing has to be shown on
+ * screen first. The whole export reads one consistent snapshot of the orders.
+ * Meant to run on a background thread: interrupting it stops the export and deletes the partial file.
+ */
+public class OrderExporter {
+
+    private static final Log log = Log.get(OrderExporter.class);
+
+    // How often progress is reported
+    private static final int PROGRESS_EVERY = 1000;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    // Exported columns, in file order; totalPrice is written in dollars
+    static final String[] COLUMNS =
+            {"orderNumber", "username", "eventName", "venue", "day", "quantity", "totalPrice", "dateTime"};
+
+    /**
+     * File layout of an export.
+     */
+    public enum Format {
+        CSV("csv"),
+        JSONL("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Chosen format and compression.
+     */
+    public record Options(Format format, boolean gzip) {
+
+        /**
+         * Picks the options matching a file name such as orders.csv or orders.jsonl.gz; CSV if the name says nothing.
+         */
+        public static Options forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            boolean gzip = name.endsWith(".gz");
+            if (gzip) {
+                name = name.substring(0, name.length() - 3);
+            }
+            Format format = name.endsWith("." + Format.JSONL.getExtension()) ? Format.JSONL : Format.CSV;
+            return new Options(format, gzip);
+        }
+    }
+
+    /**
+     * Receives progress while an export runs, on the exporting thread.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        void update(long written, long total);
+    }
+
+    /**
+     * A repository scan that feeds {@link #writeFile}.
+     */
+    @FunctionalInterface
+    interface Scan {
+        void run(OrderRepository.RowHandler handler) throws SQLException, IOException;
+    }
+
+    private OrderExporter() {
+    }
+
+    /**
+     * Exports orders to the given file, replacing it.
+     *
+     * @param username only this user's orders, or null for everyone's
+     * @return the number of orders written
+     */
+    public static long export(String username, Path file, Options options, Progress progress)
+            throws SQLException, IOException {
+        OrderRepository orders = Repositories.getInstance().orders();
+        long total = orders.count(username);
+        Written written = writeFile(handler -> orders.scanNewestFirst(username, handler), file, options, total, progress);
+        log.info("Exported " + written.rows() + " orders as " + options.format() + (options.gzip() ? ".gz" : "") + " to " + file);
+        return written.rows();
+    }
+
+    /**
+     * What {@link #writeFile} wrote: the row count and the keys of the first and last rows (null if none).
+     */
+    record Written(long rows, OrderRepository.Cursor first, OrderRepository.Cursor last) {
+    }
+
+    /**
+     * Runs the scan and streams every row it hands over into the file, replacing it.
+     * If anything goes wrong, including an interrupt, the file is deleted.
+     *
+     * @param total expected rows for progress reports, or 0 if unknown
+     */
+    static Written writeFile(Scan scan, Path file, Options options, long total, Progress progress)
+            throws SQLException, IOException {
+        RowWriter rows;
+        boolean complete = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING);
+             ChannelWriter out = new ChannelWriter(channel, options.gzip())) {
+            if (options.format() == Format.CSV) {
+                out.write(String.join(",", COLUMNS));
+                out.write("\n");
+            }
+            rows = new RowWriter(out, options.format(), total, progress);
+            scan.run(rows);
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(file);
+            }
+        }
+        progress.update(rows.count, rows.count);
+        return new Written(rows.count, rows.first, rows.last);
+    }
+
+    /**
+     * Formats each scanned row into the file and keeps count, checking for cancellation as it goes.
+     */
+    private static final class RowWriter implements OrderRepository.RowHandler {
+        private final ChannelWriter out;
+        private final Format format;
+        private final long total;
+        private final Progress progress;
+        private final StringBuilder line = new StringBuilder(256);
+        private long count;
+        private OrderRepository.Cursor first;
+        private OrderRepository.Cursor last;
+
+        RowWriter(ChannelWriter out, Format format, long total, Progress progress) {
+            this.out = out;
+            this.format = format;
+            this.total = total;
+            this.progress = progress;
+        }
+
+        @Override
+        public void accept(OrderRow row) throws IOException {
+            line.setLength(0);
+            if (format == Format.CSV) {
+                appendCsv(line, row);
+            } else {
+                appendJson(line, row);
+            }
+            out.write(line);
+            last = row.cursor();
+            if (first == null) {
+                first = last;
+            }
+            count++;
+            if (count % PROGRESS_EVERY == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Export cancelled after " + count + " orders.");
+                }
+                progress.update(count, total > 0 ? Math.max(total, count) : 0);
+            }
+        }
+    }
+
+    private static void appendCsv(StringBuilder line, OrderRow row) {
+        appendCsvText(line, row.orderNumber()).append(',');
+        appendCsvText(line, row.username()).append(',');
+        appendCsvText(line, row.eventName()).append(',');
+        appendCsvText(line, row.venue()).append(',');
+        appendCsvText(line, row.day()).append(',');
+        line.append(row.quantity()).append(',');
+        line.append(row.total()).append(',');
+        appendCsvText(line, row.dateTime()).append('\n');
+    }
+
+    // Quotes a field only when it contains a separator, quote or line break, doubling inner quotes
+    private static StringBuilder appendCsvText(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private static void appendJson(StringBuilder line, OrderRow row) {
+        line.append('{');
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append('"').append(COLUMNS[i]).append("\":");
+            switch (i) {
+                case 0 -> appendJsonText(line, row.orderNumber());
+                case 1 -> appendJsonText(line, row.username());
+                case 2 -> appendJsonText(line, row.eventName());
+                case 3 -> appendJsonText(line, row.venue());
+                case 4 -> appendJsonText(line, row.day());
+                case 5 -> line.append(row.quantity());
+                case 6 -> line.append(row.total());
+                default -> appendJsonText(line, row.dateTime());
+            }
+        }
+        line.append("}\n");
+    }
+
+    static void appendJsonText(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Encodes text as UTF-8 into one reusable direct buffer and hands it to the file channel when full,
+     * through gzip if asked.
+     */
+    private static final class ChannelWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final GZIPOutputStream gzip;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final byte[] chunk;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        ChannelWriter(FileChannel channel, boolean gzip) throws IOException {
+            this.channel = channel;
+            this.gzip = gzip ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES) : null;
+            this.chunk = gzip ? new byte[BUFFER_BYTES] : null;
+        }
+
+        void write(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, false);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isUnderflow()) {
+                    return;
+                } else {
+                    result.throwException();
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            if (gzip == null) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } else {
+                while (buffer.hasRemaining()) {
+                    int n = Math.min(chunk.length, buffer.remaining());
+                    buffer.get(chunk, 0, n);
+                    gzip.write(chunk, 0, n);
+                }
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+            if (gzip != null) {
+                // Writes the gzip trailer; the channel itself is closed by its owner
+                gzip.finish();
+            }
+        }
+    }
+}
@@ -1,188 +1,110 @@
 package org.example.eventbookingsystem.controller;
 
+import javafx.collections.ListChangeListener;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
-import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import org.example.eventbookingsystem.model.Money;
 import org.example.eventbookingsystem.model.Order;
+import org.example.eventbookingsystem.repository.OrderRepository;
+import org.example.eventbookingsystem.repository.Repositories;
 import org.example.eventbookingsystem.model.User;
+import org.example.eventbookingsystem.utilities.KeysetPager;
+import org.example.eventbookingsystem.utilities.Log;
 import org.example.eventbookingsystem.utilities.Session;
-import org.example.eventbookingsystem.utilities.DBUtil;
+import org.example.eventbookingsystem.utilities.UiTasks;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
 
 public class OrderHistoryController {
 
+    private static final Log log = Log.get(OrderHistoryController.class);
+
     @FXML private TableView<Order> orderTable;
     @FXML private TableColumn<Order, String> orderNumberColumn;
     @FXML private TableColumn<Order, String> eventNameColumn;
     @FXML private TableColumn<Order, String> venueColumn;
     @FXML private TableColumn<Order, String> dayColumn;
-    @FXML private TableColumn<Order, Integer> quantityColumn;
-    @FXML private TableColumn<Order, Double> totalPriceColumn;
+    @FXML private TableColumn<Order, Number> quantityColumn;
+    @FXML private TableColumn<Order, Money> totalPriceColumn;
     @FXML private TableColumn<Order, String> dateTimeColumn;
     @FXML
     private Button goToEventsButton;
+
+    @FXML
+    private Label countLabel;
+    @FXML
+    private ProgressBar exportProgress;
+    @FXML
+    private Button cancelExportButton;
+
+    // Rows before the end of the loaded orders at which the next page is requested
+    private static final int PREFETCH_ROWS = 20;
+
+    private final UiTasks tasks = new UiTasks();
+    private KeysetPager<Order> pager;
+    private OrderExportDialog exportDialog;
+    // Total from the order counter, -1 until it has been read
+    private long totalOrders = -1;
+
     /**
      * Called automatically when this screen is loaded.
      * It sets up the columns and loads the current user's orders into the table.
      */
     @FXML
     public void initialize() {
+        tasks.attach(orderTable);
+        exportDialog = new OrderExportDialog(tasks, exportProgress, cancelExportButton);
         // Linking table columns to Order properties
-        orderNumberColumn.setCellValueFactory(new PropertyValueFactory<>("orderNumber"));
-        eventNameColumn.setCellValueFactory(new PropertyValueFactory<>("eventName"));
-        venueColumn.setCellValueFactory(new PropertyValueFactory<>("venue"));
-        dayColumn.setCellValueFactory(new PropertyValueFactory<>("day"));
-        quantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
-        totalPriceColumn.setCellValueFactory(new PropertyValueFactory<>("totalPrice"));
-        dateTimeColumn.setCellValueFactory(new PropertyValueFactory<>("dateTime"));
+        orderNumberColumn.setCellValueFactory(cell -> cell.getValue().orderNumberProperty());
+        eventNameColumn.setCellValueFactory(cell -> cell.getValue().eventNameProperty());
+        venueColumn.setCellValueFactory(cell -> cell.getValue().venueProperty());
+        dayColumn.setCellValueFactory(cell -> cell.getValue().dayProperty());
+        quantityColumn.setCellValueFactory(cell -> cell.getValue().quantityProperty());
+        totalPriceColumn.setCellValueFactory(cell -> cell.getValue().totalPriceProperty());
+        dateTimeColumn.setCellValueFactory(cell -> cell.getValue().dateTimeProperty());
 
         // Get the username of the logged-in user
         String currentUsername = Session.getLoggedInUsername();
-        System.out.println("Loading order history for: " + currentUsername);
-
-        // Fetch and display orders
-        orderTable.getItems().setAll(getOrdersByUsername(currentUsername));
+        log.info("Loading order history for: " + currentUsername);
+
+        // Orders load a page at a time while the user scrolls
+        pager = new KeysetPager<>(tasks, (last, limit) -> Repositories.getInstance().orders().findPageAfter(currentUsername, last, limit),
+                OrderRepository.PAGE_SIZE, PREFETCH_ROWS);
+        pager.bind(orderTable);
+        pager.getItems().addListener((ListChangeListener<Order>) change -> updateCountLabel());
+        pager.reload();
+        tasks.read(() -> Repositories.getInstance().orders().count(currentUsername), count -> {
+            totalOrders = count;
+            updateCountLabel();
+        });
     }
 
-    /**
-     * Retrieves all orders placed by a specific user from the database.
-     */
-    public static List<Order> getOrdersByUsername(String username) {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders WHERE username = ? ORDER BY dateTime DESC";
-
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Order order = new Order(
-                        rs.getString("orderNumber"),
-                        rs.getString("username"),
-                        rs.getString("eventName"),
-                        rs.getString("venue"),
-                        rs.getString("day"),
-                        rs.getInt("quantity"),
-                        rs.getDouble("totalPrice"),
-                        rs.getString("dateTime")
-                );
-                orders.add(order);
-            }
-
-            System.out.println("Fetched " + orders.size() + " orders from the database for user: " + username);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return orders;
-    }
-
-    /**
-     * Retrieves all orders from the database (used for admin panel).
-     */
-    public static List<Order> getAllOrders() {
-        List<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders ORDER BY dateTime DESC";
-
-        try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                Order order = new Order(
-                        rs.getString("orderNumber"),
-                        rs.getString("username"),
-                        rs.getString("eventName"),
-                        rs.getString("venue"),
-                        rs.getString("day"),
-                        rs.getInt("quantity"),
-                        rs.getDouble("totalPrice"),
-                        rs.getString("dateTime")
-                );
-                orders.add(order);
-            }
-
-            System.out.println("Admin fetched " + orders.size() + " total orders from the database.");
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return orders;
+    private void updateCountLabel() {
+        int loaded = pager.getItems().size();
+        countLabel.setText(totalOrders < 0
+                ? loaded + " orders"
+                : "Showing " + loaded + " of " + totalOrders + " orders");
     }
 
     /**
-     * Handles the export button click — allows user to save the order list to a text file.
+     * Handles the export button click — saves the user's whole order history as CSV or JSON Lines.
+     * Orders stream from the database in the background, including rows not scrolled to yet.
      */
     @FXML
     private void handleExportOrders() {
-        FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Save Orders to Text File");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
-        fileChooser.setInitialFileName("order_history.txt");
-
-        File selectedFile = fileChooser.showSaveDialog(orderTable.getScene().getWindow());
-
-        if (selectedFile != null) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(selectedFile))) {
-                List<Order> orders = orderTable.getItems();
-
-                for (Order order : orders) {
-                    writer.write("Order Number: " + order.getOrderNumber());
-                    writer.newLine();
-                    writer.write("Date & Time: " + order.getDateTime());
-                    writer.newLine();
-                    writer.write("Event: " + order.getEventName() + " | Venue: " + order.getVenue() + " | Day: " + order.getDay());
-                    writer.newLine();
-                    writer.write("Quantity: " + order.getQuantity());
-                    writer.newLine();
-                    writer.write("Total Price: $" + String.format("%.2f", order.getTotalPrice()));
-                    writer.newLine();
-                    writer.write("---------------------------------------------");
-                    writer.newLine();
-                }
-
-                System.out.println("Order history successfully exported to file: " + selectedFile.getAbsolutePath());
-
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Success");
-                alert.setHeaderText(null);
-                alert.setContentText("Orders exported successfully!");
-                alert.showAndWait();
-
-            } catch (IOException e) {
-                e.printStackTrace();
-                System.out.println("Failed to export orders: " + e.getMessage());
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("Export Failed");
-                alert.setHeaderText(null);
-                alert.setContentText("Failed to export orders: " + e.getMessage());
-                alert.showAndWait();
-            }
-        } else {
-            System.out.println("User cancelled export operation.");
-        }
+        exportDialog.start(orderTable.getScene().getWindow(), Session.getLoggedInUsername(), "order_history");
     }
+
     @FXML
     private void handleGoToEvents(ActionEvent event) {
         try {
@@ -203,10 +125,9 @@ public class OrderHistoryController {
             stage.setTitle("Event Dashboard");
             stage.show();
 
-            System.out.println("Redirected to Events Page.");
+            log.info("Redirected to Events Page.");
         } catch (IOException e) {
-            e.printStackTrace();
-            System.out.println("Failed to redirect to Events Page.");
+            log.error("Failed to redirect to Events Page.", e);
         }
     }
 }
@@ -0,0 +1,211 @@
+package org.example.eventbookingsystem.controller;
+
+import javafx.application.Platform;
+import org.example.eventbookingsystem.model.CartItem;
+import org.example.eventbookingsystem.repository.CartRepository.ExpiredLine;
+import org.example.eventbookingsystem.repository.Repositories;
+import org.example.eventbookingsystem.utilities.Log;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Releases seats held by abandoned carts.
+ * Every cart line carries a hold expiry; when it passes, the line is deleted and its seats go back to the event.
+ * A delay queue wakes the sweeper exactly when the next known hold runs out, and a periodic full sweep
+ * catches holds written before a restart or by another terminal. Each sweep releases every expired
+ * line in one transaction.
+ * <p>
+ * A hold is only renewed through {@link #renewHold}, which refuses a hold that has already run out: the sweep
+ * may have released its seats, and saving the line again would bring it back with no seats behind it.
+ */
+public class SeatHoldSweeper {
+
+    private static final Log log = Log.get(SeatHoldSweeper.class);
+
+    // How long a cart line keeps its seats after the last change
+    public static final long HOLD_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("eventbooking.holdMinutes", 15L));
+    // Upper bound between sweeps, for holds this process never scheduled
+    private static final long FULL_SWEEP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final SeatHoldSweeper instance = new SeatHoldSweeper();
+
+    // Wake-up times only; the cart repository decides which lines are actually expired
+    private final DelayQueue<Expiry> wakeUps = new DelayQueue<>();
+    private final List<Consumer<Set<Integer>>> listeners = new CopyOnWriteArrayList<>();
+    // Shared while a hold is checked and renewed, exclusive while a sweep deletes lines,
+    // so no line is swept between the check and its renewed save
+    private final ReentrantReadWriteLock sweepLock = new ReentrantReadWriteLock();
+    private Thread worker;
+
+    private SeatHoldSweeper() {
+    }
+
+    public static SeatHoldSweeper getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts the background sweeper thread. Safe to call more than once.
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, "seat-hold-sweeper");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Seat hold sweeper started (hold " + TimeUnit.MILLISECONDS.toMinutes(HOLD_MILLIS) + " min).");
+    }
+
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * Returns the expiry for a hold placed or refreshed now, and makes sure the sweeper wakes up for it.
+     */
+    public long newHoldExpiry() {
+        long expiresAt = System.currentTimeMillis() + HOLD_MILLIS;
+        wakeUps.offer(new Expiry(expiresAt));
+        return expiresAt;
+    }
+
+    /**
+     * Gives the cart line a new hold and saves it, unless the hold it has already expired.
+     * A line that was never saved has no hold yet and always gets one. Called under the user's cart lock.
+     *
+     * @param save writes the line with its new hold; returns false if it could not be written
+     * @return false if the hold had expired or the save failed; the line then keeps the hold it had
+     */
+    boolean renewHold(CartItem item, BooleanSupplier save) {
+        sweepLock.readLock().lock();
+        try {
+            long heldUntil = item.getHoldExpiresAt();
+            if (heldUntil != 0 && heldUntil <= System.currentTimeMillis()) {
+                return false;
+            }
+            item.setHoldExpiresAt(newHoldExpiry());
+            if (!save.getAsBoolean()) {
+                // The stored line keeps its old hold, and the sweeper goes by that one
+                item.setHoldExpiresAt(heldUntil);
+                return false;
+            }
+            return true;
+        } finally {
+            sweepLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a callback that receives the ids of events whose seats were released.
+     * Callbacks run on the JavaFX thread.
+     */
+    public void addListener(Consumer<Set<Integer>> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Set<Integer>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Deletes every cart line whose hold has expired and returns its seats, all in one transaction.
+     *
+     * @return the lines that were released
+     */
+    public List<ExpiredLine> sweep() throws SQLException {
+        List<ExpiredLine> expired;
+        sweepLock.writeLock().lock();
+        try {
+            // Renewed holds still in the write-behind journal must be stored before the lines are swept
+            CartWriteBehind.getInstance().flush();
+            expired = Repositories.getInstance().carts().removeExpired(System.currentTimeMillis());
+        } finally {
+            sweepLock.writeLock().unlock();
+        }
+        if (!expired.isEmpty()) {
+            log.info("Released " + expired.size() + " expired cart holds.");
+            publish(expired);
+        }
+        return expired;
+    }
+
+    // Sleeps until the next hold expires (or the full-sweep interval passes), then sweeps
+    private void run() {
+        sweepQuietly();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Expiry next = wakeUps.poll(FULL_SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    // Fold every other hold that is already due into this sweep
+                    wakeUps.drainTo(new ArrayList<>());
+                }
+                sweepQuietly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (SQLException e) {
+            log.error("Seat hold sweep failed", e);
+        }
+    }
+
+    // Updates in-memory carts and seat counters, then tells the open screens
+    private void publish(List<ExpiredLine> expired) {
+        Set<Integer> eventIds = new HashSet<>();
+        for (ExpiredLine hold : expired) {
+            eventIds.add(hold.eventId());
+            InventoryManager.getInstance().invalidate(hold.eventId());
+            EventCatalog.getInstance().invalidate(hold.eventId());
+        }
+        // Carts lock per user, so they can be updated straight from this thread
+        for (ExpiredLine hold : expired) {
+            CartManager.getInstance().dropExpiredHold(hold.username(), hold.eventId());
+        }
+        Runnable update = () -> {
+            for (Consumer<Set<Integer>> listener : listeners) {
+                listener.accept(eventIds);
+            }
+        };
+        // Listeners update screens, so they run on the JavaFX thread when there is one
+        try {
+            Platform.runLater(update);
+        } catch (IllegalStateException toolkitNotRunning) {
+            update.run();
+        }
+    }
+
+    /**
+     * A wake-up time for the delay queue.
+     */
+    private record Expiry(long at) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(at - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -4,13 +4,11 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import org.example.eventbookingsystem.model.Event;
 import org.example.eventbookingsystem.model.CartItem;
-import org.example.eventbookingsystem.utilities.DBUtil;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import org.example.eventbookingsystem.utilities.Log;
 import org.example.eventbookingsystem.utilities.Session;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
+import org.example.eventbookingsystem.utilities.UiTasks;
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.Arrays;
@@ -19,6 +17,8 @@ import java.util.Locale;
 
 public class TicketController {
 
+    private static final Log log = Log.get(TicketController.class);
+
     @FXML private Label eventLabel;
     @FXML private Label availableTicketsLabel;
     @FXML private TextField quantityField;
@@ -31,6 +31,12 @@ public class TicketController {
     private Event selectedEvent;
     private CartManager cartManager = CartManager.getInstance();
     private EventController eventController;
+    private final UiTasks tasks = new UiTasks();
+
+    @FXML
+    public void initialize() {
+        tasks.attach(root);
+    }
 
     /**
      * Called externally to set the event details before this screen shows.
@@ -39,7 +45,7 @@ public class TicketController {
         this.selectedEvent = event;
         eventLabel.setText("Event: " + event.getName());
         availableTicketsLabel.setText("Available Tickets: " + event.getAvailableTickets());
-        System.out.println("Opened ticket window for event: " + event.getName());
+        log.info("Opened ticket window for event: " + event.getName());
     }
 
     /**
@@ -55,64 +61,76 @@ public class TicketController {
      */
     @FXML
     public void handleAddToCart() {
+        if (tasks.busyProperty().get()) {
+            return; // The previous click is still being booked
+        }
         try {
             int quantity = Integer.parseInt(quantityField.getText());
 
             if (quantity <= 0) {
                 statusLabel.setText("Quantity must be positive.");
-                System.out.println("Invalid quantity entered: " + quantity);
-                return;
-            }
-
-            if (quantity > selectedEvent.getAvailableTickets()) {
-                statusLabel.setText("Not enough tickets available.");
-                System.out.println("Requested quantity exceeds available tickets.");
+                log.warn("Invalid quantity entered: " + quantity);
                 return;
             }
 
             if (!isBookingAllowedToday(selectedEvent.getDay())) {
                 statusLabel.setText("Cannot book events earlier this week.");
-                System.out.println("Booking not allowed today for event day: " + selectedEvent.getDay());
+                log.info("Booking not allowed today for event day: " + selectedEvent.getDay());
                 return;
             }
 
-            // Add to in-memory cart
             String currentUser = Session.getLoggedInUsername();
+            tasks.run(() -> reserveAndAdd(currentUser, quantity), result -> showAddResult(result, quantity),
+                    error -> {
+                        log.error("Failed to add tickets to cart", error);
+                        statusLabel.setText("Error updating ticket count.");
+                    });
+
+        } catch (NumberFormatException e) {
+            statusLabel.setText("Please enter a valid number.");
+            log.warn("Failed to parse ticket quantity: " + quantityField.getText());
+        }
+    }
+
+    // Runs on a background thread
+    private InventoryManager.Result reserveAndAdd(String currentUser, int quantity) {
+        // Take the seats atomically; the in-memory event may be stale, the inventory is not
+        InventoryManager.Result result = InventoryManager.getInstance().reserve(selectedEvent.getId(), quantity);
+        if (result.isSuccess()) {
+            // Add to in-memory cart
             CartItem cartItem = new CartItem(selectedEvent, quantity, selectedEvent.getPrice());
             cartManager.addToCart(currentUser, cartItem);
-            System.out.println("Added to cart: " + quantity + " tickets for " + selectedEvent.getName());
-
-            // Update ticket count in the database
-            try (Connection conn = DBUtil.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(
-                         "UPDATE events SET soldTickets = soldTickets + ? WHERE id = ?")) {
-                stmt.setInt(1, quantity);
-                stmt.setInt(2, selectedEvent.getId());
-                stmt.executeUpdate();
-                System.out.println("Database updated: soldTickets + " + quantity);
-            } catch (SQLException e) {
-                e.printStackTrace();
-                statusLabel.setText("Error updating ticket count.");
-                return;
-            }
+            log.info("Added to cart: " + quantity + " tickets for " + selectedEvent.getName());
+        }
+        return result;
+    }
 
-            // Refresh the main event table
-            if (eventController != null) {
-                eventController.loadEventsFromDB();
-                System.out.println("Event table refreshed after cart addition.");
+    private void showAddResult(InventoryManager.Result result, int quantity) {
+        if (!result.isSuccess()) {
+            switch (result.status()) {
+                case INSUFFICIENT_INVENTORY -> {
+                    statusLabel.setText("Not enough tickets available. Only " + result.available() + " left.");
+                    availableTicketsLabel.setText("Available Tickets: " + result.available());
+                }
+                case EVENT_UNAVAILABLE -> statusLabel.setText("This event is no longer available.");
+                default -> statusLabel.setText("Error updating ticket count.");
             }
+            log.warn("Could not reserve " + quantity + " tickets: " + result.status());
+            return;
+        }
 
-            // Close the popup window
-            Stage stage = (Stage) root.getScene().getWindow();
-            stage.close();
-            System.out.println("Ticket popup window closed.");
+        // Refresh the main event table
+        if (eventController != null) {
+            eventController.loadEventsFromDB();
+            log.debug("Event table refreshed after cart addition.");
+        }
 
-            statusLabel.setText(quantity + " tickets added to cart.");
+        // Close the popup window
+        Stage stage = (Stage) root.getScene().getWindow();
+        stage.close();
+        log.info("Ticket popup window closed.");
 
-        } catch (NumberFormatException e) {
-            statusLabel.setText("Please enter a valid number.");
-            System.out.println("Failed to parse ticket quantity: " + quantityField.getText());
-        }
+        statusLabel.setText(quantity + " tickets added to cart.");
     }
 
     /**
@@ -129,7 +147,7 @@ public class TicketController {
         int todayIndex = daysOfWeek.indexOf(todayShort);
         int eventIndex = daysOfWeek.indexOf(eventDay);
 
-        System.out.println("Today is " + todayShort + " (index " + todayIndex + "), Event is on " + eventDay + " (index " + eventIndex + ")");
+        log.debug("Today is " + todayShort + " (index " + todayIndex + "), Event is on " + eventDay + " (index " + eventIndex + ")");
 
         return eventIndex >= todayIndex;
     }
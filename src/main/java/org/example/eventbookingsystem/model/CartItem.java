@@ -1,22 +1,66 @@
 package org.example.eventbookingsystem.model;
 
+import org.example.eventbookingsystem.utilities.Log;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.ObjectBinding;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
 /**
  * CartItem represents an individual booking of tickets for an event.
  * It holds the selected event, quantity of tickets booked, and the event price.
+ * Quantity and total are JavaFX properties; screens show copies (see {@link #copy()}) so the
+ * cart's own items can be changed off the JavaFX thread.
  */
 public class CartItem {
-    private Event event;
-    private int quantity;
-    private double price;
+
+    private static final Log log = Log.get(CartItem.class);
+
+    private final Event event;
+    private final IntegerProperty quantity = new SimpleIntegerProperty(this, "quantity");
+    private final SimpleObjectProperty<Money> price = new SimpleObjectProperty<>(this, "price");
+    // Event price times quantity; follows the quantity automatically
+    private final ObjectBinding<Money> totalPrice;
+    private volatile long holdExpiresAt; // epoch millis when the held seats go back to the event
 
     /**
      * Constructs a CartItem object with a specific event, quantity, and price.
      */
-    public CartItem(Event event, int quantity, double price) {
+    public CartItem(Event event, int quantity, Money price) {
+        this(event, quantity, price, 0);
+        log.debug(() -> "Created CartItem for event: " + event.getName() + ", Quantity: " + quantity + ", Price per ticket: " + price);
+    }
+
+    private CartItem(Event event, int quantity, Money price, long holdExpiresAt) {
         this.event = event;
-        this.quantity = quantity;
-        this.price = price;
-        System.out.println("Created CartItem for event: " + event.getName() + ", Quantity: " + quantity + ", Price per ticket: " + price);
+        this.quantity.set(quantity);
+        this.price.set(price);
+        // The line's own price, fixed when it was added; the event is shared and its price may change meanwhile
+        this.totalPrice = Bindings.createObjectBinding(() -> price.times(this.quantity.get()), this.quantity);
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
+    /**
+     * Returns a copy for display; the event is shared, quantity and hold are copied.
+     */
+    public CartItem copy() {
+        return new CartItem(event, getQuantity(), getPrice(), holdExpiresAt);
+    }
+
+    /**
+     * Copies the quantity and hold of another version of this item onto this one.
+     *
+     * @return true if the quantity changed
+     */
+    public boolean updateFrom(CartItem other) {
+        holdExpiresAt = other.holdExpiresAt;
+        if (getQuantity() == other.getQuantity()) {
+            return false;
+        }
+        setQuantity(other.getQuantity());
+        return true;
     }
 
     /**
@@ -29,22 +73,34 @@ public class CartItem {
     /**
      * Returns the price per ticket (stored separately for flexibility).
      */
-    public double getPrice() {
-        return price;
+    public Money getPrice() {
+        return price.get();
     }
 
     /**
      * Returns how many tickets were added for this event.
      */
     public int getQuantity() {
-        return quantity;
+        return quantity.get();
     }
 
     /**
      * Calculates the total cost for this cart item (price * quantity).
      */
-    public double getTotalPrice() {
-        return event.getPrice() * quantity;
+    public Money getTotalPrice() {
+        return totalPrice.get();
+    }
+
+    public IntegerProperty quantityProperty() {
+        return quantity;
+    }
+
+    public ReadOnlyObjectProperty<Money> priceProperty() {
+        return price;
+    }
+
+    public ObjectBinding<Money> totalPriceProperty() {
+        return totalPrice;
     }
 
     /**
@@ -65,11 +121,22 @@ public class CartItem {
      * Updates the number of tickets in the cart item.
      */
     public void setQuantity(int quantity) {
-        this.quantity = quantity;
-        System.out.println("Updated ticket quantity for event: " + event.getName() + " to " + quantity);
+        this.quantity.set(quantity);
+        log.debug(() -> "Updated ticket quantity for event: " + event.getName() + " to " + quantity);
     }
     public String getDay() {
         return event.getDay();
     }
 
+    /**
+     * Returns when the seats held by this item expire (epoch milliseconds), or 0 if not yet saved.
+     */
+    public long getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(long holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
+
 }
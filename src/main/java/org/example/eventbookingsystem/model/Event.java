@@ -1,110 +1,221 @@
 package org.example.eventbookingsystem.model;
 
+import org.example.eventbookingsystem.utilities.Log;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.IntegerBinding;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+import java.util.Objects;
+
 /**
  * The Event class represents an event in the booking system.
  * It contains all necessary details like name, venue, day, price, total and sold tickets.
+ * Fields are JavaFX properties, so a table cell bound to one repaints by itself when the value changes.
+ * Like any JavaFX property, they should only be changed on the JavaFX thread once the event is on screen.
  */
 public class Event {
-    private int id;
-    private String name;
-    private String venue;
-    private String day;
-    private double price;
-    private int soldTickets;
-    private int totalTickets;
-    private String status;
-    private boolean enabled;
+
+    private static final Log log = Log.get(Event.class);
+
+    private final int id;
+    private final StringProperty name = new SimpleStringProperty(this, "name");
+    private final StringProperty venue = new SimpleStringProperty(this, "venue");
+    private final StringProperty day = new SimpleStringProperty(this, "day");
+    private final ObjectProperty<Money> price = new SimpleObjectProperty<>(this, "price");
+    private final IntegerProperty soldTickets = new SimpleIntegerProperty(this, "soldTickets");
+    private final IntegerProperty totalTickets = new SimpleIntegerProperty(this, "totalTickets");
+    private final StringProperty status = new SimpleStringProperty(this, "status");
+    private final BooleanProperty enabled = new SimpleBooleanProperty(this, "enabled");
+    // Tickets still available; follows total and sold tickets automatically
+    private final IntegerBinding availableTickets =
+            Bindings.createIntegerBinding(() -> totalTickets.get() - soldTickets.get(), totalTickets, soldTickets);
 
     /**
      * Constructs an Event with all required properties.
      */
-    public Event(int id, String name, String venue, String day, double price, int soldTickets, int totalTickets, boolean enabled) {
+    public Event(int id, String name, String venue, String day, Money price, int soldTickets, int totalTickets, boolean enabled) {
         this.id = id;
-        this.name = name;
-        this.venue = venue;
-        this.day = day;
-        this.price = price;
-        this.soldTickets = soldTickets;
-        this.totalTickets = totalTickets;
-        this.enabled = enabled;
+        this.name.set(name);
+        this.venue.set(venue);
+        this.day.set(day);
+        this.price.set(price);
+        this.soldTickets.set(soldTickets);
+        this.totalTickets.set(totalTickets);
+        this.enabled.set(enabled);
 
-        System.out.println("Created new event: " + name + " at " + venue + " on " + day);
+        log.debug(() -> "Created new event: " + name + " at " + venue + " on " + day);
     }
 
     // Getter methods for all fields used for UI or logic
     public String getName() {
-        return name;
+        return name.get();
     }
 
     public String getVenue() {
-        return venue;
+        return venue.get();
     }
 
     public String getDay() {
-        return day;
+        return day.get();
     }
 
-    public double getPrice() {
-        return price;
+    public Money getPrice() {
+        return price.get();
     }
 
     public int getSoldTickets() {
-        return soldTickets;
+        return soldTickets.get();
     }
 
     public int getTotalTickets() {
-        return totalTickets;
+        return totalTickets.get();
     }
 
     /**
      * Calculates tickets still available.
      */
     public int getAvailableTickets() {
-        return totalTickets - soldTickets;
+        return availableTickets.get();
+    }
+
+    // Properties for binding table cells and labels
+
+    public StringProperty nameProperty() {
+        return name;
+    }
+
+    public StringProperty venueProperty() {
+        return venue;
+    }
+
+    public StringProperty dayProperty() {
+        return day;
+    }
+
+    public ObjectProperty<Money> priceProperty() {
+        return price;
+    }
+
+    public IntegerProperty soldTicketsProperty() {
+        return soldTickets;
+    }
+
+    public IntegerProperty totalTicketsProperty() {
+        return totalTickets;
+    }
+
+    public IntegerBinding availableTicketsProperty() {
+        return availableTickets;
+    }
+
+    public StringProperty statusProperty() {
+        return status;
+    }
+
+    public BooleanProperty enabledProperty() {
+        return enabled;
     }
 
     // Setters to update event properties dynamically
 
     public void setSoldTickets(int soldTickets) {
-        this.soldTickets = soldTickets;
-        System.out.println("Updated sold tickets for event '" + name + "' to: " + soldTickets);
+        this.soldTickets.set(soldTickets);
+        log.debug(() -> "Updated sold tickets for event '" + getName() + "' to: " + soldTickets);
     }
 
     public void setTotalTickets(int totalTickets) {
-        this.totalTickets = totalTickets;
-        System.out.println("Updated total tickets for event '" + name + "' to: " + totalTickets);
+        this.totalTickets.set(totalTickets);
+        log.debug(() -> "Updated total tickets for event '" + getName() + "' to: " + totalTickets);
     }
 
     public void setName(String name) {
-        this.name = name;
-        System.out.println("Updated event name to: " + name);
+        this.name.set(name);
+        log.debug(() -> "Updated event name to: " + name);
     }
 
     public void setVenue(String venue) {
-        this.venue = venue;
-        System.out.println("Updated venue for event '" + name + "' to: " + venue);
+        this.venue.set(venue);
+        log.debug(() -> "Updated venue for event '" + getName() + "' to: " + venue);
     }
 
     public void setDay(String day) {
-        this.day = day;
-        System.out.println("Updated day for event '" + name + "' to: " + day);
+        this.day.set(day);
+        log.debug(() -> "Updated day for event '" + getName() + "' to: " + day);
     }
 
-    public void setPrice(double price) {
-        this.price = price;
-        System.out.println("Updated ticket price for event '" + name + "' to: $" + price);
+    public void setPrice(Money price) {
+        this.price.set(price);
+        log.debug(() -> "Updated ticket price for event '" + getName() + "' to: " + price.format());
     }
 
     public int getId() {
         return id;
     }
 
+    public boolean isEnabled() {
+        return enabled.get();
+    }
+
+    /**
+     * Returns an independent copy of this event, e.g. for a table row that is later updated in place.
+     */
+    public Event copy() {
+        Event copy = new Event(id, getName(), getVenue(), getDay(), getPrice(), getSoldTickets(), getTotalTickets(), isEnabled());
+        copy.status.set(getStatus());
+        return copy;
+    }
+
+    /**
+     * Copies the fields of another version of this event onto this one, touching only those that differ.
+     *
+     * @return true if anything changed
+     */
+    public boolean updateFrom(Event other) {
+        boolean changed = false;
+        if (!Objects.equals(getName(), other.getName())) {
+            setName(other.getName());
+            changed = true;
+        }
+        if (!Objects.equals(getVenue(), other.getVenue())) {
+            setVenue(other.getVenue());
+            changed = true;
+        }
+        if (!Objects.equals(getDay(), other.getDay())) {
+            setDay(other.getDay());
+            changed = true;
+        }
+        if (!getPrice().equals(other.getPrice())) {
+            setPrice(other.getPrice());
+            changed = true;
+        }
+        if (getSoldTickets() != other.getSoldTickets()) {
+            setSoldTickets(other.getSoldTickets());
+            changed = true;
+        }
+        if (getTotalTickets() != other.getTotalTickets()) {
+            setTotalTickets(other.getTotalTickets());
+            changed = true;
+        }
+        if (isEnabled() != other.isEnabled()) {
+            enabled.set(other.isEnabled());
+            changed = true;
+        }
+        return changed;
+    }
+
     public String getStatus() {
-        return status;
+        return status.get();
     }
 
     public void setStatus(String status) {
-        this.status = status;
-        System.out.println("Updated status for event '" + name + "' to: " + status);
+        this.status.set(status);
+        log.debug(() -> "Updated status for event '" + getName() + "' to: " + status);
     }
 }
@@ -0,0 +1,88 @@
+package org.example.eventbookingsystem.model;
+
+import javafx.application.Platform;
+import org.example.eventbookingsystem.utilities.Log;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one shared Event object per event id, for everything that shows or holds events:
+ * event table rows, cart lines and the screens opened from them.
+ * Thousands of carts holding the same event share one object instead of a copy each, and a change
+ * applied to it shows up everywhere through its properties, so no screen acts on a stale copy.
+ * <p>
+ * Registered events are bound to table cells, so they are only changed on the JavaFX thread: immediately
+ * when called there, or when JavaFX is not running (as in tests), and otherwise queued to it.
+ * Background readers that need a consistent view use the immutable snapshots of the event catalog instead.
+ */
+public class EventRegistry {
+
+    private static final Log log = Log.get(EventRegistry.class);
+
+    private static final EventRegistry instance = new EventRegistry();
+
+    private final ConcurrentHashMap<Integer, Event> events = new ConcurrentHashMap<>();
+
+    private EventRegistry() {
+    }
+
+    public static EventRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the registered event with the loaded event's id, registering a copy of the loaded one if there is none.
+     * An event that is already registered is returned as it is.
+     */
+    public Event intern(Event loaded) {
+        return events.computeIfAbsent(loaded.getId(), id -> {
+            log.debug(() -> "Registered event " + id);
+            return loaded.copy();
+        });
+    }
+
+    /**
+     * Same as {@link #intern}, but also brings an already registered event up to date with the loaded one.
+     * Use for freshly read data only, e.g. a catalog snapshot.
+     */
+    public Event resolve(Event loaded) {
+        Event[] created = {null};
+        Event event = events.computeIfAbsent(loaded.getId(), id -> created[0] = loaded.copy());
+        if (event != created[0]) {
+            onFxThread(() -> event.updateFrom(loaded));
+        }
+        return event;
+    }
+
+    /**
+     * Returns the registered event with the id, or null if it has not been loaded.
+     */
+    public Event get(int eventId) {
+        return events.get(eventId);
+    }
+
+    /**
+     * Drops a deleted event; objects already holding it keep their reference.
+     */
+    public void forget(int eventId) {
+        events.remove(eventId);
+    }
+
+    // Number of registered events
+    public int size() {
+        return events.size();
+    }
+
+    private static void onFxThread(Runnable change) {
+        if (Platform.isFxApplicationThread()) {
+            change.run();
+            return;
+        }
+        try {
+            Platform.runLater(change);
+        } catch (IllegalStateException e) {
+            // JavaFX is not running, so nothing is on screen to protect
+            change.run();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package org.example.eventbookingsystem.model;
 
+import org.example.eventbookingsystem.utilities.Log;
+
 /**
  * GroupedItem represents a simplified view of an event,
  * grouping venue and day information together, and tracking its ID and enabled status.
  * This is mainly used in admin views where events are grouped for management purposes.
  */
 public class GroupedItem {
+
+    private static final Log log = Log.get(GroupedItem.class);
+
     private final String eventName;
     private final String venueDay;
     private final int eventId;
@@ -25,7 +30,7 @@ public class GroupedItem {
         this.eventId = eventId;
         this.enabled = enabled;
 
-        System.out.println("GroupedItem created for event: " + eventName +
+        log.debug(() -> "GroupedItem created for event: " + eventName +
                 ", Venue-Day: " + venueDay +
                 ", Status: " + (enabled ? "Enabled" : "Disabled"));
     }
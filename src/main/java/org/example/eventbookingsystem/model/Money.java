@@ -0,0 +1,77 @@
+package org.example.eventbookingsystem.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money in whole cents.
+ * Prices, cart totals and revenue are kept as exact integers, so adding up thousands of orders gives the same
+ * result in every report; nothing is ever stored or summed as a floating-point number. The database keeps the
+ * same cents in INTEGER columns. Arithmetic that would overflow a long throws instead of wrapping around.
+ *
+ * @param cents the amount in cents; negative for refunds and reversals
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Reads an amount typed in dollars, such as "45", "45.5" or "45.50". Fractions of a cent round half up.
+     *
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static Money parse(String text) {
+        BigDecimal amount = new BigDecimal(text.trim());
+        try {
+            return ofCents(amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    /**
+     * Returns the amount with a currency sign, e.g. "$45.50", as shown in dialogs and labels.
+     */
+    public String format() {
+        return cents < 0 ? "-$" + toString().substring(1) : "$" + this;
+    }
+
+    /**
+     * Returns the plain amount with two decimals, e.g. "45.50" or "-0.05", as used in tables and exports.
+     */
+    @Override
+    public String toString() {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
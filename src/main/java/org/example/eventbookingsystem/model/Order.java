@@ -1,19 +1,31 @@
 package org.example.eventbookingsystem.model;
 
+import org.example.eventbookingsystem.utilities.Log;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+
 /**
  * The Order class represents a user's confirmed ticket booking.
  * It stores details such as order number, username, event info, quantity, and total cost.
  * This is used across both user and admin views for displaying order history and analytics.
+ * An order never changes once placed, so its properties are read-only.
  */
 public class Order {
-    private final String orderNumber;  // Unique identifier for the order
-    private final String username;     // Username of the person who placed the order
-    private final String eventName;    // Name of the event booked
-    private final String venue;        // Venue of the event
-    private final String day;          // Day on which the event will be held
-    private final int quantity;        // Number of tickets purchased
-    private final double totalPrice;   // Total price paid (price per ticket * quantity)
-    private final String dateTime;     // Date and time the order was placed
+
+    private static final Log log = Log.get(Order.class);
+
+    private final SimpleStringProperty orderNumber = new SimpleStringProperty(this, "orderNumber");  // Unique identifier for the order
+    private final SimpleStringProperty username = new SimpleStringProperty(this, "username");        // Username of the person who placed the order
+    private final SimpleStringProperty eventName = new SimpleStringProperty(this, "eventName");      // Name of the event booked
+    private final SimpleStringProperty venue = new SimpleStringProperty(this, "venue");              // Venue of the event
+    private final SimpleStringProperty day = new SimpleStringProperty(this, "day");                  // Day on which the event will be held
+    private final SimpleIntegerProperty quantity = new SimpleIntegerProperty(this, "quantity");      // Number of tickets purchased
+    private final SimpleObjectProperty<Money> totalPrice = new SimpleObjectProperty<>(this, "totalPrice"); // Total price paid (price per ticket * quantity)
+    private final SimpleStringProperty dateTime = new SimpleStringProperty(this, "dateTime");        // Date and time the order was placed
 
     /**
      * Constructor to create a complete order object with all necessary details.
@@ -28,35 +40,53 @@ public class Order {
      * @param dateTime timestamp of order
      */
     public Order(String orderNumber, String username, String eventName, String venue, String day,
-                 int quantity, double totalPrice, String dateTime) {
-        this.orderNumber = orderNumber;
-        this.username = username;
-        this.eventName = eventName;
-        this.venue = venue;
-        this.day = day;
-        this.quantity = quantity;
-        this.totalPrice = totalPrice;
-        this.dateTime = dateTime;
+                 int quantity, Money totalPrice, String dateTime) {
+        this.orderNumber.set(orderNumber);
+        this.username.set(username);
+        this.eventName.set(eventName);
+        this.venue.set(venue);
+        this.day.set(day);
+        this.quantity.set(quantity);
+        this.totalPrice.set(totalPrice);
+        this.dateTime.set(dateTime);
 
         // This is a handy point to log the order creation for debugging or confirmation.
-        System.out.println("New Order Created: Order#" + orderNumber + " by user " + username + " for event " + eventName);
+        log.debug(() -> "New Order Created: Order#" + orderNumber + " by user " + username + " for event " + eventName);
     }
 
-    // Standard getters for use in TableViews, export, etc.
+    // Standard getters for use in export, etc.
+
+    public String getOrderNumber() { return orderNumber.get(); }
+
+    public String getUsername() { return username.get(); }
+
+    public String getEventName() { return eventName.get(); }
+
+    public String getVenue() { return venue.get(); }
+
+    public String getDay() { return day.get(); }
+
+    public int getQuantity() { return quantity.get(); }
+
+    public Money getTotalPrice() { return totalPrice.get(); }
+
+    public String getDateTime() { return dateTime.get(); }
+
+    // Read-only properties for binding table cells
 
-    public String getOrderNumber() { return orderNumber; }
+    public ReadOnlyStringProperty orderNumberProperty() { return orderNumber; }
 
-    public String getUsername() { return username; }
+    public ReadOnlyStringProperty usernameProperty() { return username; }
 
-    public String getEventName() { return eventName; }
+    public ReadOnlyStringProperty eventNameProperty() { return eventName; }
 
-    public String getVenue() { return venue; }
+    public ReadOnlyStringProperty venueProperty() { return venue; }
 
-    public String getDay() { return day; }
+    public ReadOnlyStringProperty dayProperty() { return day; }
 
-    public int getQuantity() { return quantity; }
+    public ReadOnlyIntegerProperty quantityProperty() { return quantity; }
 
-    public double getTotalPrice() { return totalPrice; }
+    public ReadOnlyObjectProperty<Money> totalPriceProperty() { return totalPrice; }
 
-    public String getDateTime() { return dateTime; }
+    public ReadOnlyStringProperty dateTimeProperty() { return dateTime; }
 }
@@ -1,11 +1,16 @@
 package org.example.eventbookingsystem.model;
 
+import org.example.eventbookingsystem.utilities.Log;
+
 /**
  * Represents a user in the Event Booking System.
  * A user can sign up, log in, and book tickets.
  * This class stores their essential identity and preferences.
  */
 public class User {
+
+    private static final Log log = Log.get(User.class);
+
     private int id;                  // Unique database ID for the user
     private String username;        // User's login name
     private String password;        // Encrypted password
@@ -25,12 +30,12 @@ public class User {
         this.preferredName = preferredName;
 
         // You might log this when a user object is created for debugging
-        System.out.println("User object created for username: " + username);
+        log.debug(() -> "User object created for username: " + username);
     }
     public User(String username) {
         this.username = username;
         this.preferredName = username; // Default fallback
-        System.out.println("User object created (light) for username: " + username);
+        log.debug(() -> "User object created (light) for username: " + username);
     }
     // Getters to access user info
 
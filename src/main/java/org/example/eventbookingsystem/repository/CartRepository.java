@@ -0,0 +1,76 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.CartItem;
+import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.Money;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stored cart lines, one per user and event. Each line holds its seats until its hold expires.
+ */
+public interface CartRepository {
+
+    /**
+     * One stored cart line. Lines read back carry a fresh copy of their event; lines saved only need its id.
+     *
+     * @param price         price per ticket when the line was added
+     * @param holdExpiresAt epoch milliseconds when the held seats go back to the event
+     */
+    record Line(Event event, Money price, int quantity, long holdExpiresAt) {
+        public static Line of(CartItem item) {
+            return new Line(item.getEvent(), item.getPrice(), item.getQuantity(), item.getHoldExpiresAt());
+        }
+    }
+
+    /**
+     * A line whose hold ran out and whose seats were given back.
+     */
+    record ExpiredLine(String username, int eventId, int quantity) {
+    }
+
+    /**
+     * Returns the user's lines in the order they were added.
+     */
+    List<Line> findByUser(String username) throws SQLException;
+
+    /**
+     * Adds the line, or overwrites the quantity and hold of the user's line for the same event.
+     */
+    void save(String username, Line line) throws SQLException;
+
+    /**
+     * Saves the lines of many users in one transaction.
+     */
+    void saveAll(Map<String, ? extends Collection<Line>> linesByUser) throws SQLException;
+
+    /**
+     * Deletes the user's line for the event and gives back the seats it held, together.
+     * Only a line actually deleted here gives seats back, so one the sweeper already released is not released twice.
+     *
+     * @return how many seats were given back, 0 if the line was no longer stored
+     */
+    int remove(String username, int eventId) throws SQLException;
+
+    /**
+     * Deletes all of the user's lines and gives back the seats they held, together.
+     *
+     * @return seats given back per event id
+     */
+    Map<Integer, Integer> clear(String username) throws SQLException;
+
+    /**
+     * Deletes every line for the event and gives all of their seats back, together.
+     *
+     * @return how many lines were deleted
+     */
+    int removeEvent(int eventId) throws SQLException;
+
+    /**
+     * Deletes every line whose hold expired at or before now and gives the seats back, together.
+     */
+    List<ExpiredLine> removeExpired(long now) throws SQLException;
+}
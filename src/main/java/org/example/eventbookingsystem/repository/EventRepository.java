@@ -0,0 +1,68 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.Money;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stored events and their seat counts.
+ * Events returned are fresh objects owned by the caller.
+ */
+public interface EventRepository {
+
+    /**
+     * Returns every event, enabled or not, in id order.
+     */
+    List<Event> findAll() throws SQLException;
+
+    /**
+     * Returns the events with the given ids; ids with no event are left out.
+     */
+    List<Event> findByIds(Collection<Integer> ids) throws SQLException;
+
+    int count() throws SQLException;
+
+    /**
+     * Adds an enabled event with no tickets sold, unless one with the same name, venue and day exists.
+     *
+     * @return false if the event already existed
+     */
+    boolean addIfAbsent(String name, String venue, String day, Money price, int capacity) throws SQLException;
+
+    /**
+     * Adds the events as they are, except for their ids, which the repository assigns.
+     */
+    void addAll(List<Event> events) throws SQLException;
+
+    /**
+     * Changes the event's details and capacity, unless more tickets are sold than the new capacity allows.
+     * The check and the change are one statement, so a sale made meanwhile can never end up above capacity.
+     *
+     * @return false if nothing was changed, because the capacity is below the tickets sold or the event is gone
+     */
+    boolean update(int eventId, String name, String venue, String day, Money price, int capacity) throws SQLException;
+
+    void setEnabled(int eventId, boolean enabled) throws SQLException;
+
+    void delete(int eventId) throws SQLException;
+
+    /**
+     * Takes seats only if the event is enabled and enough remain, in one atomic step.
+     *
+     * @return false if the seats were not taken
+     */
+    boolean reserveSeats(int eventId, int quantity) throws SQLException;
+
+    /**
+     * Gives seats back, never letting the sold count drop below zero.
+     */
+    void releaseSeats(int eventId, int quantity) throws SQLException;
+
+    /**
+     * Returns the seats left, or -1 if the event does not exist or is disabled.
+     */
+    int availableSeats(int eventId) throws SQLException;
+}
@@ -0,0 +1,124 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.repository.InMemoryStore.CartRow;
+import org.example.eventbookingsystem.repository.InMemoryStore.EventRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cart lines kept in memory, for tests and benchmarks.
+ */
+public class InMemoryCartRepository implements CartRepository {
+
+    private final InMemoryStore store;
+
+    InMemoryCartRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    // Lines whose event no longer exists are left out, like the join in the SQLite repository
+    @Override
+    public List<Line> findByUser(String username) {
+        synchronized (store) {
+            List<Line> lines = new ArrayList<>();
+            for (CartRow row : store.carts.getOrDefault(username, new LinkedHashMap<>()).values()) {
+                EventRow event = store.events.get(row.eventId());
+                if (event != null) {
+                    lines.add(new Line(event.toEvent(), row.price(), row.quantity(), row.holdExpiresAt()));
+                }
+            }
+            return lines;
+        }
+    }
+
+    @Override
+    public void save(String username, Line line) {
+        synchronized (store) {
+            put(username, line);
+        }
+    }
+
+    @Override
+    public void saveAll(Map<String, ? extends Collection<Line>> linesByUser) {
+        synchronized (store) {
+            linesByUser.forEach((username, lines) -> lines.forEach(line -> put(username, line)));
+        }
+    }
+
+    // A line already in the cart keeps its place and price, like the upsert in the SQLite repository
+    private void put(String username, Line line) {
+        int eventId = line.event().getId();
+        store.carts.computeIfAbsent(username, u -> new LinkedHashMap<>()).merge(eventId,
+                new CartRow(eventId, line.price(), line.quantity(), line.holdExpiresAt()),
+                (old, saved) -> new CartRow(eventId, old.price(), saved.quantity(), saved.holdExpiresAt()));
+    }
+
+    @Override
+    public int remove(String username, int eventId) {
+        synchronized (store) {
+            Map<Integer, CartRow> cart = store.carts.get(username);
+            CartRow row = cart != null ? cart.remove(eventId) : null;
+            if (row == null) {
+                return 0;
+            }
+            store.release(eventId, row.quantity());
+            return row.quantity();
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> clear(String username) {
+        synchronized (store) {
+            Map<Integer, Integer> seatsByEvent = new HashMap<>();
+            Map<Integer, CartRow> cart = store.carts.remove(username);
+            if (cart != null) {
+                for (CartRow row : cart.values()) {
+                    store.release(row.eventId(), row.quantity());
+                    seatsByEvent.merge(row.eventId(), row.quantity(), Integer::sum);
+                }
+            }
+            return seatsByEvent;
+        }
+    }
+
+    @Override
+    public int removeEvent(int eventId) {
+        synchronized (store) {
+            int removed = 0;
+            int seats = 0;
+            for (Map<Integer, CartRow> cart : store.carts.values()) {
+                CartRow row = cart.remove(eventId);
+                if (row != null) {
+                    removed++;
+                    seats += row.quantity();
+                }
+            }
+            store.release(eventId, seats);
+            return removed;
+        }
+    }
+
+    @Override
+    public List<ExpiredLine> removeExpired(long now) {
+        synchronized (store) {
+            List<ExpiredLine> expired = new ArrayList<>();
+            for (Map.Entry<String, LinkedHashMap<Integer, CartRow>> cart : store.carts.entrySet()) {
+                for (Iterator<CartRow> it = cart.getValue().values().iterator(); it.hasNext(); ) {
+                    CartRow row = it.next();
+                    if (row.holdExpiresAt() <= now) {
+                        it.remove();
+                        store.release(row.eventId(), row.quantity());
+                        expired.add(new ExpiredLine(cart.getKey(), row.eventId(), row.quantity()));
+                    }
+                }
+            }
+            return expired;
+        }
+    }
+}
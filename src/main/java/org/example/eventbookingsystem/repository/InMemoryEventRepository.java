@@ -0,0 +1,132 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.repository.InMemoryStore.EventRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Events kept in memory, for tests and benchmarks.
+ */
+public class InMemoryEventRepository implements EventRepository {
+
+    private final InMemoryStore store;
+
+    InMemoryEventRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<Event> findAll() {
+        synchronized (store) {
+            List<Event> events = new ArrayList<>(store.events.size());
+            for (EventRow row : store.events.values()) {
+                events.add(row.toEvent());
+            }
+            return events;
+        }
+    }
+
+    @Override
+    public List<Event> findByIds(Collection<Integer> ids) {
+        synchronized (store) {
+            List<Event> events = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                EventRow row = store.events.get(id);
+                if (row != null) {
+                    events.add(row.toEvent());
+                }
+            }
+            return events;
+        }
+    }
+
+    @Override
+    public int count() {
+        synchronized (store) {
+            return store.events.size();
+        }
+    }
+
+    @Override
+    public boolean addIfAbsent(String name, String venue, String day, Money price, int capacity) {
+        synchronized (store) {
+            for (EventRow row : store.events.values()) {
+                if (row.name().equals(name) && row.venue().equals(venue) && row.day().equals(day)) {
+                    return false;
+                }
+            }
+            int id = store.nextEventId++;
+            store.events.put(id, new EventRow(id, name, venue, day, price, 0, capacity, true));
+            return true;
+        }
+    }
+
+    @Override
+    public void addAll(List<Event> events) {
+        synchronized (store) {
+            for (Event event : events) {
+                int id = store.nextEventId++;
+                store.events.put(id, new EventRow(id, event.getName(), event.getVenue(), event.getDay(), event.getPrice(),
+                        event.getSoldTickets(), event.getTotalTickets(), event.isEnabled()));
+            }
+        }
+    }
+
+    @Override
+    public boolean update(int eventId, String name, String venue, String day, Money price, int capacity) {
+        synchronized (store) {
+            EventRow row = store.events.get(eventId);
+            if (row == null || row.sold() > capacity) {
+                return false;
+            }
+            store.events.put(eventId, new EventRow(eventId, name, venue, day, price, row.sold(), capacity, row.enabled()));
+            return true;
+        }
+    }
+
+    @Override
+    public void setEnabled(int eventId, boolean enabled) {
+        synchronized (store) {
+            store.events.computeIfPresent(eventId, (id, row) ->
+                    new EventRow(id, row.name(), row.venue(), row.day(), row.price(), row.sold(), row.total(), enabled));
+        }
+    }
+
+    @Override
+    public void delete(int eventId) {
+        synchronized (store) {
+            store.events.remove(eventId);
+        }
+    }
+
+    @Override
+    public boolean reserveSeats(int eventId, int quantity) {
+        synchronized (store) {
+            EventRow row = store.events.get(eventId);
+            if (row == null || !row.enabled() || row.sold() + quantity > row.total()) {
+                return false;
+            }
+            store.events.put(eventId, row.withSold(row.sold() + quantity));
+            return true;
+        }
+    }
+
+    @Override
+    public void releaseSeats(int eventId, int quantity) {
+        synchronized (store) {
+            store.release(eventId, quantity);
+        }
+    }
+
+    @Override
+    public int availableSeats(int eventId) {
+        synchronized (store) {
+            EventRow row = store.events.get(eventId);
+            return row == null || !row.enabled() ? -1 : Math.max(row.total() - row.sold(), 0);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.CartItem;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.model.Order;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Orders and sales totals kept in memory, for tests and benchmarks.
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+
+    private final InMemoryStore store;
+
+    InMemoryOrderRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void checkout(String username, List<CartItem> items, List<String> orderNumbers, String dateTime) throws SQLException {
+        synchronized (store) {
+            // Check every line before changing anything, so a failure leaves the whole cart in place
+            Map<Integer, InMemoryStore.CartRow> cart = store.carts.get(username);
+            for (CartItem item : items) {
+                if (cart == null || !cart.containsKey(item.getEvent().getId())) {
+                    throw new SQLException("Cart changed during checkout; nothing was ordered.");
+                }
+            }
+
+            String hour = OrderRepository.hourOf(dateTime);
+            for (int i = 0; i < items.size(); i++) {
+                CartItem item = items.get(i);
+                int eventId = item.getEvent().getId();
+                Order order = new Order(orderNumbers.get(i), username, item.getEvent().getName(), item.getEvent().getVenue(),
+                        item.getEvent().getDay(), item.getQuantity(), item.getTotalPrice(), dateTime);
+                Cursor key = Cursor.after(order);
+                store.orders.put(key, order);
+                store.ordersByUser.computeIfAbsent(username, u -> new TreeMap<>(InMemoryStore.NEWEST_FIRST)).put(key, order);
+                cart.remove(eventId);
+
+                long[] totals = store.sales.computeIfAbsent(eventId, id -> new HashMap<>()).computeIfAbsent(hour, h -> new long[3]);
+                totals[0] += item.getQuantity();
+                totals[1] += item.getTotalPrice().cents();
+                totals[2]++;
+            }
+        }
+    }
+
+    @Override
+    public List<Order> findPage(String username, Cursor after, int limit) {
+        synchronized (store) {
+            NavigableMap<Cursor, Order> orders = username == null ? store.orders : store.ordersByUser.get(username);
+            List<Order> page = new ArrayList<>(limit);
+            if (orders == null) {
+                return page;
+            }
+            for (Order order : (after == null ? orders : orders.tailMap(after, false)).values()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(order);
+            }
+            return page;
+        }
+    }
+
+    // The matching orders are copied under the lock and handed over outside it, so a slow handler never blocks checkouts
+    @Override
+    public void scanNewestFirst(String username, RowHandler handler) throws IOException {
+        List<Order> orders;
+        synchronized (store) {
+            NavigableMap<Cursor, Order> source = username == null ? store.orders : store.ordersByUser.get(username);
+            orders = source == null ? List.of() : new ArrayList<>(source.values());
+        }
+        for (Order order : orders) {
+            handler.accept(toRow(order));
+        }
+    }
+
+    @Override
+    public void scanOldestFirst(Cursor after, String cutoff, RowHandler handler) throws IOException {
+        List<Order> orders = new ArrayList<>();
+        synchronized (store) {
+            NavigableMap<Cursor, Order> oldestFirst = store.orders.descendingMap();
+            for (Order order : (after == null ? oldestFirst : oldestFirst.tailMap(after, false)).values()) {
+                if (order.getDateTime().compareTo(cutoff) > 0) {
+                    break;
+                }
+                orders.add(order);
+            }
+        }
+        for (Order order : orders) {
+            handler.accept(toRow(order));
+        }
+    }
+
+    private static OrderRow toRow(Order order) {
+        return new OrderRow(order.getOrderNumber(), order.getUsername(), order.getEventName(), order.getVenue(),
+                order.getDay(), order.getQuantity(), order.getTotalPrice(), order.getDateTime());
+    }
+
+    @Override
+    public ExportCheckpoint findExportCheckpoint(String destination) {
+        synchronized (store) {
+            return store.exportCheckpoints.get(destination);
+        }
+    }
+
+    @Override
+    public void saveExportCheckpoint(String destination, ExportCheckpoint checkpoint, String updatedAt) {
+        synchronized (store) {
+            store.exportCheckpoints.put(destination, checkpoint);
+        }
+    }
+
+    @Override
+    public long count(String username) {
+        synchronized (store) {
+            if (username == null) {
+                return store.orders.size();
+            }
+            Map<Cursor, Order> orders = store.ordersByUser.get(username);
+            return orders == null ? 0 : orders.size();
+        }
+    }
+
+    @Override
+    public List<EventSales> salesByEvent(String now) {
+        String thisHour = OrderRepository.hourOf(now);
+        List<EventSales> sales = new ArrayList<>();
+        synchronized (store) {
+            store.sales.forEach((eventId, hours) -> {
+                long tickets = 0;
+                long cents = 0;
+                long orders = 0;
+                for (long[] totals : hours.values()) {
+                    tickets += totals[0];
+                    cents += totals[1];
+                    orders += totals[2];
+                }
+                long[] current = hours.get(thisHour);
+                sales.add(new EventSales(eventId, tickets, Money.ofCents(cents), orders, current == null ? 0 : current[0]));
+            });
+        }
+        sales.sort(Comparator.comparingLong(EventSales::tickets).reversed().thenComparingInt(EventSales::eventId));
+        return sales;
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.model.Order;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The tables behind the in-memory repositories, shared by all of them so that operations spanning
+ * several tables (checkout, releasing carted seats) see one consistent state.
+ * Every repository operation holds this object's lock for its whole duration, which makes it atomic
+ * the way a transaction is in SQLite. Rows are immutable records; callers only ever get copies.
+ */
+final class InMemoryStore {
+
+    /**
+     * One row of the events table.
+     */
+    record EventRow(int id, String name, String venue, String day, Money price, int sold, int total, boolean enabled) {
+
+        EventRow withSold(int sold) {
+            return new EventRow(id, name, venue, day, price, sold, total, enabled);
+        }
+
+        Event toEvent() {
+            return new Event(id, name, venue, day, price, sold, total, enabled);
+        }
+    }
+
+    /**
+     * One row of the users table.
+     */
+    record UserRow(int id, String username, String password, String preferredName) {
+    }
+
+    /**
+     * One row of the cart table; the event is only referenced by id, like a foreign key.
+     */
+    record CartRow(int eventId, Money price, int quantity, long holdExpiresAt) {
+    }
+
+    // Newest first, the order pages are read in
+    static final Comparator<OrderRepository.Cursor> NEWEST_FIRST =
+            Comparator.comparing(OrderRepository.Cursor::dateTime).thenComparing(OrderRepository.Cursor::orderNumber).reversed();
+
+    final Map<Integer, EventRow> events = new TreeMap<>();
+    int nextEventId = 1;
+    final Map<String, UserRow> users = new HashMap<>();
+    int nextUserId = 1;
+    // Username -> event id -> line, in the order the lines were added
+    final Map<String, LinkedHashMap<Integer, CartRow>> carts = new HashMap<>();
+    final TreeMap<OrderRepository.Cursor, Order> orders = new TreeMap<>(NEWEST_FIRST);
+    final Map<String, TreeMap<OrderRepository.Cursor, Order>> ordersByUser = new HashMap<>();
+    // Event id -> hour -> {tickets, revenue cents, orders}
+    final Map<Integer, Map<String, long[]>> sales = new HashMap<>();
+    // Export destination -> where its exports stopped
+    final Map<String, OrderRepository.ExportCheckpoint> exportCheckpoints = new HashMap<>();
+
+    // Gives seats back to an event, never below zero
+    void release(int eventId, int quantity) {
+        EventRow row = events.get(eventId);
+        if (row != null) {
+            events.put(eventId, row.withSold(Math.max(row.sold() - quantity, 0)));
+        }
+    }
+}
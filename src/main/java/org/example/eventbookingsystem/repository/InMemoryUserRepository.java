@@ -0,0 +1,53 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.User;
+import org.example.eventbookingsystem.repository.InMemoryStore.UserRow;
+
+/**
+ * Users kept in memory, for tests and benchmarks.
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private final InMemoryStore store;
+
+    InMemoryUserRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public User findByCredentials(String username, String encryptedPassword) {
+        synchronized (store) {
+            UserRow row = store.users.get(username);
+            return row == null || !row.password().equals(encryptedPassword)
+                    ? null
+                    : new User(row.id(), row.username(), row.preferredName());
+        }
+    }
+
+    @Override
+    public boolean exists(String username) {
+        synchronized (store) {
+            return store.users.containsKey(username);
+        }
+    }
+
+    // Usernames are unique, as in the users table
+    @Override
+    public User create(String username, String encryptedPassword, String preferredName) {
+        synchronized (store) {
+            if (store.users.containsKey(username)) {
+                return null;
+            }
+            UserRow row = new UserRow(store.nextUserId++, username, encryptedPassword, preferredName);
+            store.users.put(username, row);
+            return new User(row.id(), username, preferredName);
+        }
+    }
+
+    @Override
+    public void updatePassword(String username, String encryptedPassword) {
+        synchronized (store) {
+            store.users.computeIfPresent(username, (u, row) -> new UserRow(row.id(), u, encryptedPassword, row.preferredName()));
+        }
+    }
+}
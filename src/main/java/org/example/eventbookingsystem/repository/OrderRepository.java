@@ -0,0 +1,141 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.CartItem;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.model.Order;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Placed orders and the per-event sales totals that move with them.
+ * Orders are read newest first, one page at a time, keyed on (dateTime, orderNumber): each page starts right
+ * after the last order of the previous one, so orders placed meanwhile never shift rows between pages.
+ * Exports instead scan every matching order in one go, handing rows over as they are read.
+ */
+public interface OrderRepository {
+
+    // Rows per page, overridable with -D at launch
+    int PAGE_SIZE = Integer.getInteger("eventbooking.orderPageSize", 100);
+
+    /**
+     * Position in the newest-first order; a page fetched after a cursor starts with the next older order.
+     */
+    record Cursor(String dateTime, String orderNumber) {
+        public static Cursor after(Order order) {
+            return new Cursor(order.getDateTime(), order.getOrderNumber());
+        }
+    }
+
+    /**
+     * One order as plain values, for exports that read every order and show none of them.
+     */
+    record OrderRow(String orderNumber, String username, String eventName, String venue, String day,
+                    int quantity, Money total, String dateTime) {
+        public Cursor cursor() {
+            return new Cursor(dateTime, orderNumber);
+        }
+    }
+
+    /**
+     * Receives the rows of a scan one at a time, on the scanning thread. Throwing stops the scan.
+     */
+    @FunctionalInterface
+    interface RowHandler {
+        void accept(OrderRow row) throws IOException;
+    }
+
+    /**
+     * Where the incremental exports to one destination stopped.
+     *
+     * @param segment number of the last segment written
+     * @param last    key of the newest order exported; the next export starts after it
+     */
+    record ExportCheckpoint(int segment, Cursor last) {
+    }
+
+    /**
+     * Totals for one event.
+     *
+     * @param ticketsThisHour tickets sold since the start of the current hour
+     */
+    record EventSales(int eventId, long tickets, Money revenue, long orders, long ticketsThisHour) {
+
+        /**
+         * Share of the capacity sold, from 0 to 1, or -1 if the capacity is unknown.
+         */
+        public double sellThrough(int totalTickets) {
+            return totalTickets > 0 ? (double) tickets / totalTickets : -1;
+        }
+    }
+
+    /**
+     * Turns cart lines into orders in one transaction: one order per line, the user's cart lines for those
+     * events are consumed, and the sales totals move with them. If any line is no longer in the cart
+     * (for example its event was disabled and its seats released), nothing is ordered.
+     *
+     * @param orderNumbers one per item, in the same order
+     * @param dateTime     "yyyy-MM-dd HH:mm:ss"
+     */
+    void checkout(String username, List<CartItem> items, List<String> orderNumbers, String dateTime) throws SQLException;
+
+    /**
+     * Fetches up to limit orders, newest first.
+     *
+     * @param username only this user's orders, or null for everyone's
+     * @param after    the cursor of the previous page's last order, or null for the first page
+     */
+    List<Order> findPage(String username, Cursor after, int limit) throws SQLException;
+
+    /**
+     * Fetches the page that follows the given order, or the first page if last is null.
+     */
+    default List<Order> findPageAfter(String username, Order last, int limit) throws SQLException {
+        return findPage(username, last == null ? null : Cursor.after(last), limit);
+    }
+
+    /**
+     * Returns how many orders the user has placed, or how many there are in total if username is null.
+     */
+    long count(String username) throws SQLException;
+
+    /**
+     * Streams orders newest first from one consistent snapshot, without collecting them first.
+     *
+     * @param username only this user's orders, or null for everyone's
+     */
+    void scanNewestFirst(String username, RowHandler handler) throws SQLException, IOException;
+
+    /**
+     * Streams the orders placed after a key and no later than a cutoff, oldest first, from one consistent snapshot.
+     *
+     * @param after  key of the last order already exported, or null to start with the oldest
+     * @param cutoff latest dateTime to include, "yyyy-MM-dd HH:mm:ss"
+     */
+    void scanOldestFirst(Cursor after, String cutoff, RowHandler handler) throws SQLException, IOException;
+
+    /**
+     * Returns where the exports to the destination stopped, or null if nothing was exported there yet.
+     */
+    ExportCheckpoint findExportCheckpoint(String destination) throws SQLException;
+
+    /**
+     * Records where the exports to the destination stopped, replacing the previous checkpoint.
+     *
+     * @param updatedAt "yyyy-MM-dd HH:mm:ss"
+     */
+    void saveExportCheckpoint(String destination, ExportCheckpoint checkpoint, String updatedAt) throws SQLException;
+
+    /**
+     * Returns the totals of every event that has sold anything, best-selling first.
+     *
+     * @param now current time as "yyyy-MM-dd HH:mm:ss", which picks the hour for ticketsThisHour
+     */
+    List<EventSales> salesByEvent(String now) throws SQLException;
+
+    // "2025-05-01 14:37:12" -> "2025-05-01 14:00", the hour bucket sales are kept in
+    static String hourOf(String dateTime) {
+        return dateTime.substring(0, 13) + ":00";
+    }
+}
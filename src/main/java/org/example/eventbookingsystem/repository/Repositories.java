@@ -0,0 +1,113 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.utilities.Log;
+import org.example.eventbookingsystem.utilities.OrderIdGenerator;
+
+import java.util.function.Supplier;
+
+/**
+ * The repositories the application works with, all backed by the same storage.
+ * -Deventbooking.repository picks the backend at launch: "sqlite" (the default) uses the database that
+ * -Deventbooking.db.url points to, "memory" keeps everything in the heap and starts empty, which lets the
+ * booking logic run in tests and benchmarks without disk or JavaFX.
+ */
+public final class Repositories {
+
+    private static final Log log = Log.get(Repositories.class);
+
+    private static volatile Repositories instance;
+
+    private final String backend;
+    private final EventRepository events;
+    private final CartRepository carts;
+    private final OrderRepository orders;
+    private final UserRepository users;
+    // Looked up on first use; the database generator reads its lease when created
+    private final Supplier<OrderIdGenerator> orderIds;
+
+    private Repositories(String backend, EventRepository events, CartRepository carts, OrderRepository orders,
+                         UserRepository users, Supplier<OrderIdGenerator> orderIds) {
+        this.backend = backend;
+        this.events = events;
+        this.carts = carts;
+        this.orders = orders;
+        this.users = users;
+        this.orderIds = orderIds;
+    }
+
+    /**
+     * Returns the repositories in use, creating the configured ones on first use.
+     */
+    public static Repositories getInstance() {
+        Repositories current = instance;
+        if (current == null) {
+            synchronized (Repositories.class) {
+                current = instance;
+                if (current == null) {
+                    current = "memory".equalsIgnoreCase(System.getProperty("eventbooking.repository", "sqlite")) ? inMemory() : sqlite();
+                    instance = current;
+                    log.info("Using " + current.backend + " repositories.");
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Replaces the repositories in use. Only for tests and benchmarks, before anything has been loaded
+     * through the old ones: caches such as the event catalog are not cleared.
+     */
+    public static synchronized void install(Repositories repositories) {
+        instance = repositories;
+    }
+
+    /**
+     * Repositories on the SQLite database.
+     */
+    public static Repositories sqlite() {
+        return new Repositories("sqlite", new SqliteEventRepository(), new SqliteCartRepository(),
+                new SqliteOrderRepository(), new SqliteUserRepository(), OrderIdGenerator::getInstance);
+    }
+
+    /**
+     * New, empty repositories kept in memory. Order ids lease from memory too, so they start over with each set.
+     */
+    public static Repositories inMemory() {
+        InMemoryStore store = new InMemoryStore();
+        long[] leased = {0};
+        OrderIdGenerator.LeaseStore leases = new OrderIdGenerator.LeaseStore() {
+            @Override
+            public synchronized long load() {
+                return leased[0];
+            }
+
+            @Override
+            public synchronized void save(long highWater) {
+                leased[0] = Math.max(leased[0], highWater);
+            }
+        };
+        OrderIdGenerator orderIds = new OrderIdGenerator(0, 60_000, leases, System::currentTimeMillis);
+        return new Repositories("memory", new InMemoryEventRepository(store), new InMemoryCartRepository(store),
+                new InMemoryOrderRepository(store), new InMemoryUserRepository(store), () -> orderIds);
+    }
+
+    public EventRepository events() {
+        return events;
+    }
+
+    public CartRepository carts() {
+        return carts;
+    }
+
+    public OrderRepository orders() {
+        return orders;
+    }
+
+    public UserRepository users() {
+        return users;
+    }
+
+    public OrderIdGenerator orderIds() {
+        return orderIds.get();
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.utilities.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cart lines in the cart table. Statements that delete lines give their seats back to the events table
+ * in the same transaction.
+ */
+public class SqliteCartRepository implements CartRepository {
+
+    // Inserts a cart line, or overwrites its quantity and hold if the user already has this event in the cart
+    private static final String UPSERT = """
+            INSERT INTO cart (username, event_id, price_cents, quantity, hold_expires_at) VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT(username, event_id) DO UPDATE SET quantity = excluded.quantity, hold_expires_at = excluded.hold_expires_at
+            """;
+
+    // Reads the lines together with their events in one query, instead of one event lookup per row
+    @Override
+    public List<Line> findByUser(String username) throws SQLException {
+        List<Line> lines = new ArrayList<>();
+        String query = """
+                SELECT c.event_id, c.price_cents AS line_price_cents, c.quantity, c.hold_expires_at,
+                       e.name, e.venue, e.day, e.price_cents, e.soldTickets, e.totalTickets, e.enabled
+                FROM cart c JOIN events e ON e.id = c.event_id
+                WHERE c.username = ?
+                ORDER BY c.id
+                """;
+        try (Connection conn = DBUtil.getConnection(); PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Event event = new Event(
+                            rs.getInt("event_id"),
+                            rs.getString("name"),
+                            rs.getString("venue"),
+                            rs.getString("day"),
+                            Money.ofCents(rs.getLong("price_cents")),
+                            rs.getInt("soldTickets"),
+                            rs.getInt("totalTickets"),
+                            rs.getBoolean("enabled"));
+                    lines.add(new Line(event, Money.ofCents(rs.getLong("line_price_cents")),
+                            rs.getInt("quantity"), rs.getLong("hold_expires_at")));
+                }
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public void save(String username, Line line) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPSERT)) {
+            bind(stmt, username, line);
+            stmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void saveAll(Map<String, ? extends Collection<Line>> linesByUser) throws SQLException {
+        DBUtil.runWithRetry(conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(UPSERT)) {
+                for (Map.Entry<String, ? extends Collection<Line>> user : linesByUser.entrySet()) {
+                    for (Line line : user.getValue()) {
+                        bind(stmt, user.getKey(), line);
+                        stmt.addBatch();
+                    }
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return null;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement stmt, String username, Line line) throws SQLException {
+        stmt.setString(1, username);
+        stmt.setInt(2, line.event().getId());
+        stmt.setLong(3, line.price().cents());
+        stmt.setInt(4, line.quantity());
+        stmt.setLong(5, line.holdExpiresAt());
+    }
+
+    // The seats released are the quantity the delete returns, not what the caller last saw
+    @Override
+    public int remove(String username, int eventId) throws SQLException {
+        return DBUtil.runWithRetry(conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM cart WHERE username = ? AND event_id = ? RETURNING quantity");
+                 PreparedStatement release = conn.prepareStatement(
+                         "UPDATE events SET soldTickets = MAX(soldTickets - ?, 0) WHERE id = ?")) {
+                delete.setString(1, username);
+                delete.setInt(2, eventId);
+                int quantity = 0;
+                try (ResultSet rs = delete.executeQuery()) {
+                    if (rs.next()) {
+                        quantity = rs.getInt("quantity");
+                    }
+                }
+
+                if (quantity > 0) {
+                    release.setInt(1, quantity);
+                    release.setInt(2, eventId);
+                    release.executeUpdate();
+                }
+                conn.commit();
+                return quantity;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    // Like removeExpired, for one user's lines: one delete, then one release per event, in one transaction
+    @Override
+    public Map<Integer, Integer> clear(String username) throws SQLException {
+        return DBUtil.runWithRetry(conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM cart WHERE username = ? RETURNING event_id, quantity");
+                 PreparedStatement release = conn.prepareStatement(
+                         "UPDATE events SET soldTickets = MAX(soldTickets - ?, 0) WHERE id = ?")) {
+                Map<Integer, Integer> seatsByEvent = new HashMap<>();
+                delete.setString(1, username);
+                try (ResultSet rs = delete.executeQuery()) {
+                    while (rs.next()) {
+                        seatsByEvent.merge(rs.getInt("event_id"), rs.getInt("quantity"), Integer::sum);
+                    }
+                }
+                for (Map.Entry<Integer, Integer> entry : seatsByEvent.entrySet()) {
+                    release.setInt(1, entry.getValue());
+                    release.setInt(2, entry.getKey());
+                    release.addBatch();
+                }
+                release.executeBatch();
+                conn.commit();
+                return seatsByEvent;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    @Override
+    public int removeEvent(int eventId) throws SQLException {
+        return DBUtil.runWithRetry(conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement release = conn.prepareStatement(
+                         "UPDATE events SET soldTickets = soldTickets - (SELECT COALESCE(SUM(quantity), 0) FROM cart WHERE event_id = ?) WHERE id = ?");
+                 PreparedStatement delete = conn.prepareStatement("DELETE FROM cart WHERE event_id = ?")) {
+                release.setInt(1, eventId);
+                release.setInt(2, eventId);
+                release.executeUpdate();
+
+                delete.setInt(1, eventId);
+                int removed = delete.executeUpdate();
+                conn.commit();
+                return removed;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    // Each expired line is deleted and its seats returned, with one release per event, in one transaction
+    @Override
+    public List<ExpiredLine> removeExpired(long now) throws SQLException {
+        return DBUtil.runWithRetry(conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM cart WHERE hold_expires_at <= ? RETURNING username, event_id, quantity");
+                 PreparedStatement release = conn.prepareStatement(
+                         "UPDATE events SET soldTickets = MAX(soldTickets - ?, 0) WHERE id = ?")) {
+                List<ExpiredLine> lines = new ArrayList<>();
+                Map<Integer, Integer> seatsByEvent = new HashMap<>();
+                delete.setLong(1, now);
+                try (ResultSet rs = delete.executeQuery()) {
+                    while (rs.next()) {
+                        ExpiredLine line = new ExpiredLine(rs.getString("username"), rs.getInt("event_id"), rs.getInt("quantity"));
+                        lines.add(line);
+                        seatsByEvent.merge(line.eventId(), line.quantity(), Integer::sum);
+                    }
+                }
+                for (Map.Entry<Integer, Integer> entry : seatsByEvent.entrySet()) {
+                    release.setInt(1, entry.getValue());
+                    release.setInt(2, entry.getKey());
+                    release.addBatch();
+                }
+                release.executeBatch();
+                conn.commit();
+                return lines;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.Event;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.utilities.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Events in the events table.
+ * Seats are taken with a single guarded UPDATE that only succeeds while soldTickets + quantity stays
+ * within totalTickets, so two terminals sharing the database can never oversell the same event.
+ */
+public class SqliteEventRepository implements EventRepository {
+
+    @Override
+    public List<Event> findAll() throws SQLException {
+        List<Event> events = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM events ORDER BY id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                events.add(readEvent(rs));
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public List<Event> findByIds(Collection<Integer> ids) throws SQLException {
+        List<Event> events = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return events;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM events WHERE id IN (" + placeholders + ")")) {
+            int i = 1;
+            for (Integer id : ids) {
+                stmt.setInt(i++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(readEvent(rs));
+                }
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public int count() throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM events");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @Override
+    public boolean addIfAbsent(String name, String venue, String day, Money price, int capacity) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement check = conn.prepareStatement("SELECT COUNT(*) FROM events WHERE name = ? AND venue = ? AND day = ?")) {
+            check.setString(1, name);
+            check.setString(2, venue);
+            check.setString(3, day);
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    return false;
+                }
+            }
+
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO events (name, venue, day, price_cents, soldTickets, totalTickets, enabled) VALUES (?, ?, ?, ?, 0, ?, 1)")) {
+                insert.setString(1, name);
+                insert.setString(2, venue);
+                insert.setString(3, day);
+                insert.setLong(4, price.cents());
+                insert.setInt(5, capacity);
+                insert.executeUpdate();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void addAll(List<Event> events) throws SQLException {
+        DBUtil.runWithRetry(conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO events (name, venue, day, price_cents, soldTickets, totalTickets, enabled) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (Event event : events) {
+                    insert.setString(1, event.getName());
+                    insert.setString(2, event.getVenue());
+                    insert.setString(3, event.getDay());
+                    insert.setLong(4, event.getPrice().cents());
+                    insert.setInt(5, event.getSoldTickets());
+                    insert.setInt(6, event.getTotalTickets());
+                    insert.setBoolean(7, event.isEnabled());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                conn.commit();
+                return null;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    @Override
+    public boolean update(int eventId, String name, String venue, String day, Money price, int capacity) throws SQLException {
+        int updated = DBUtil.runWithRetry(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE events SET name = ?, venue = ?, day = ?, price_cents = ?, totalTickets = ? WHERE id = ? AND soldTickets <= ?")) {
+                stmt.setString(1, name);
+                stmt.setString(2, venue);
+                stmt.setString(3, day);
+                stmt.setLong(4, price.cents());
+                stmt.setInt(5, capacity);
+                stmt.setInt(6, eventId);
+                stmt.setInt(7, capacity);
+                return stmt.executeUpdate();
+            }
+        });
+        return updated == 1;
+    }
+
+    @Override
+    public void setEnabled(int eventId, boolean enabled) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE events SET enabled = ? WHERE id = ?")) {
+            stmt.setBoolean(1, enabled);
+            stmt.setInt(2, eventId);
+            stmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void delete(int eventId) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM events WHERE id = ?")) {
+            stmt.setInt(1, eventId);
+            stmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public boolean reserveSeats(int eventId, int quantity) throws SQLException {
+        int updated = DBUtil.runWithRetry(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE events SET soldTickets = soldTickets + ? WHERE id = ? AND enabled = 1 AND soldTickets + ? <= totalTickets")) {
+                stmt.setInt(1, quantity);
+                stmt.setInt(2, eventId);
+                stmt.setInt(3, quantity);
+                return stmt.executeUpdate();
+            }
+        });
+        return updated == 1;
+    }
+
+    @Override
+    public void releaseSeats(int eventId, int quantity) throws SQLException {
+        DBUtil.runWithRetry(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE events SET soldTickets = MAX(soldTickets - ?, 0) WHERE id = ?")) {
+                stmt.setInt(1, quantity);
+                stmt.setInt(2, eventId);
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public int availableSeats(int eventId) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT totalTickets - soldTickets FROM events WHERE id = ? AND enabled = 1")) {
+            stmt.setInt(1, eventId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? Math.max(rs.getInt(1), 0) : -1;
+            }
+        }
+    }
+
+    private static Event readEvent(ResultSet rs) throws SQLException {
+        return new Event(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("venue"),
+                rs.getString("day"),
+                Money.ofCents(rs.getLong("price_cents")),
+                rs.getInt("soldTickets"),
+                rs.getInt("totalTickets"),
+                rs.getBoolean("enabled")
+        );
+    }
+}
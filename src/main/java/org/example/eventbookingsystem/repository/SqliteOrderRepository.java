@@ -0,0 +1,244 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.CartItem;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.model.Order;
+import org.example.eventbookingsystem.utilities.DBUtil;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orders in the orders table, with tickets and revenue per event and hour kept in sales_summary.
+ * Checkout adds to the summary in the same transaction that inserts the orders, so the totals always agree
+ * with the orders table without ever reading it. A refund must subtract from it inside the transaction that
+ * removes the orders. Counts come from the order_counts table, which triggers keep current.
+ * Scans read one forward-only result set, so the whole scan sees one snapshot and memory does not grow with it.
+ */
+public class SqliteOrderRepository implements OrderRepository {
+
+    // Rows SQLite hands over per step of a scan
+    private static final int FETCH_SIZE = 500;
+    // What a scan selects, in OrderRow order
+    private static final String ROW_COLUMNS = "orderNumber, username, eventName, venue, day, quantity, total_cents, dateTime";
+
+    @Override
+    public void checkout(String username, List<CartItem> items, List<String> orderNumbers, String dateTime) throws SQLException {
+        String insert = "INSERT INTO orders (orderNumber, username, eventName, venue, day, quantity, total_cents, dateTime, event_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String consume = "DELETE FROM cart WHERE username = ? AND event_id = ?";
+        String summarize = """
+                INSERT INTO sales_summary (event_id, hour, tickets, revenue_cents, orders) VALUES (?, ?, ?, ?, 1)
+                ON CONFLICT(event_id, hour) DO UPDATE SET tickets = tickets + excluded.tickets,
+                    revenue_cents = revenue_cents + excluded.revenue_cents, orders = orders + excluded.orders
+                """;
+        DBUtil.runWithRetry(conn -> {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insertStmt = conn.prepareStatement(insert);
+                 PreparedStatement consumeStmt = conn.prepareStatement(consume);
+                 PreparedStatement summaryStmt = conn.prepareStatement(summarize)) {
+                String hour = OrderRepository.hourOf(dateTime);
+                for (int i = 0; i < items.size(); i++) {
+                    CartItem item = items.get(i);
+                    insertStmt.setString(1, orderNumbers.get(i));
+                    insertStmt.setString(2, username);
+                    insertStmt.setString(3, item.getEvent().getName());
+                    insertStmt.setString(4, item.getEvent().getVenue());
+                    insertStmt.setString(5, item.getEvent().getDay());
+                    insertStmt.setInt(6, item.getQuantity());
+                    insertStmt.setLong(7, item.getTotalPrice().cents());
+                    insertStmt.setString(8, dateTime);
+                    insertStmt.setInt(9, item.getEvent().getId());
+                    insertStmt.addBatch();
+
+                    consumeStmt.setString(1, username);
+                    consumeStmt.setInt(2, item.getEvent().getId());
+                    consumeStmt.addBatch();
+
+                    summaryStmt.setInt(1, item.getEvent().getId());
+                    summaryStmt.setString(2, hour);
+                    summaryStmt.setInt(3, item.getQuantity());
+                    summaryStmt.setLong(4, item.getTotalPrice().cents());
+                    summaryStmt.addBatch();
+                }
+                insertStmt.executeBatch();
+
+                // Every line must still be in the cart; if one was removed (e.g. its event was disabled)
+                // its seats were already released and must not be sold
+                for (int removed : consumeStmt.executeBatch()) {
+                    if (removed == 0) {
+                        throw new SQLException("Cart changed during checkout; nothing was ordered.");
+                    }
+                }
+
+                // The admin sales totals move with the orders, in the same transaction
+                summaryStmt.executeBatch();
+                conn.commit();
+                return null;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    @Override
+    public List<Order> findPage(String username, Cursor after, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM orders");
+        List<String> conditions = new ArrayList<>();
+        if (username != null) {
+            conditions.add("username = ?");
+        }
+        if (after != null) {
+            conditions.add("(dateTime, orderNumber) < (?, ?)");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY dateTime DESC, orderNumber DESC LIMIT ?");
+
+        List<Order> orders = new ArrayList<>(limit);
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            if (username != null) {
+                stmt.setString(i++, username);
+            }
+            if (after != null) {
+                stmt.setString(i++, after.dateTime());
+                stmt.setString(i++, after.orderNumber());
+            }
+            stmt.setInt(i, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(readOrder(rs));
+                }
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public void scanNewestFirst(String username, RowHandler handler) throws SQLException, IOException {
+        String sql = "SELECT " + ROW_COLUMNS + " FROM orders"
+                + (username == null ? "" : " WHERE username = ?")
+                + " ORDER BY dateTime DESC, orderNumber DESC";
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            if (username != null) {
+                stmt.setString(1, username);
+            }
+            scan(stmt, handler);
+        }
+    }
+
+    @Override
+    public void scanOldestFirst(Cursor after, String cutoff, RowHandler handler) throws SQLException, IOException {
+        String sql = "SELECT " + ROW_COLUMNS + " FROM orders WHERE dateTime <= ?"
+                + (after == null ? "" : " AND (dateTime, orderNumber) > (?, ?)")
+                + " ORDER BY dateTime, orderNumber";
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setString(1, cutoff);
+            if (after != null) {
+                stmt.setString(2, after.dateTime());
+                stmt.setString(3, after.orderNumber());
+            }
+            scan(stmt, handler);
+        }
+    }
+
+    private static void scan(PreparedStatement stmt, RowHandler handler) throws SQLException, IOException {
+        stmt.setFetchSize(FETCH_SIZE);
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                handler.accept(new OrderRow(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5), rs.getInt(6), Money.ofCents(rs.getLong(7)), rs.getString(8)));
+            }
+        }
+    }
+
+    @Override
+    public ExportCheckpoint findExportCheckpoint(String destination) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT segment, dateTime, orderNumber FROM export_checkpoints WHERE destination = ?")) {
+            stmt.setString(1, destination);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new ExportCheckpoint(rs.getInt(1), new Cursor(rs.getString(2), rs.getString(3)));
+            }
+        }
+    }
+
+    @Override
+    public void saveExportCheckpoint(String destination, ExportCheckpoint checkpoint, String updatedAt) throws SQLException {
+        DBUtil.runWithRetry(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("""
+                    INSERT INTO export_checkpoints (destination, dateTime, orderNumber, segment, updatedAt)
+                    VALUES (?, ?, ?, ?, ?)
+                    ON CONFLICT(destination) DO UPDATE SET dateTime = excluded.dateTime,
+                        orderNumber = excluded.orderNumber, segment = excluded.segment, updatedAt = excluded.updatedAt
+                    """)) {
+                stmt.setString(1, destination);
+                stmt.setString(2, checkpoint.last().dateTime());
+                stmt.setString(3, checkpoint.last().orderNumber());
+                stmt.setInt(4, checkpoint.segment());
+                stmt.setString(5, updatedAt);
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public long count(String username) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT total FROM order_counts WHERE scope = ?")) {
+            stmt.setString(1, username == null ? "all" : "user:" + username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Reads one row per event and hour that had sales, never the orders themselves
+    @Override
+    public List<EventSales> salesByEvent(String now) throws SQLException {
+        List<EventSales> sales = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("""
+                     SELECT event_id, SUM(tickets), SUM(revenue_cents), SUM(orders),
+                            SUM(CASE WHEN hour = ? THEN tickets ELSE 0 END)
+                     FROM sales_summary GROUP BY event_id ORDER BY SUM(tickets) DESC, event_id
+                     """)) {
+            stmt.setString(1, OrderRepository.hourOf(now));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sales.add(new EventSales(rs.getInt(1), rs.getLong(2), Money.ofCents(rs.getLong(3)), rs.getLong(4), rs.getLong(5)));
+                }
+            }
+        }
+        return sales;
+    }
+
+    private static Order readOrder(ResultSet rs) throws SQLException {
+        return new Order(
+                rs.getString("orderNumber"),
+                rs.getString("username"),
+                rs.getString("eventName"),
+                rs.getString("venue"),
+                rs.getString("day"),
+                rs.getInt("quantity"),
+                Money.ofCents(rs.getLong("total_cents")),
+                rs.getString("dateTime")
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.User;
+import org.example.eventbookingsystem.utilities.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Users in the users table.
+ */
+public class SqliteUserRepository implements UserRepository {
+
+    @Override
+    public User findByCredentials(String username, String encryptedPassword) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM users WHERE username = ? AND password = ?")) {
+            stmt.setString(1, username);
+            stmt.setString(2, encryptedPassword);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new User(rs.getInt("id"), rs.getString("username"), rs.getString("preferredName")) : null;
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String username) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM users WHERE username = ?")) {
+            stmt.setString(1, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Override
+    public User create(String username, String encryptedPassword, String preferredName) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO users (username, password, preferredName) VALUES (?, ?, ?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, username);
+            insert.setString(2, encryptedPassword);
+            insert.setString(3, preferredName);
+            insert.executeUpdate();
+
+            try (ResultSet generatedKeys = insert.getGeneratedKeys()) {
+                return generatedKeys.next() ? new User(generatedKeys.getInt(1), username, preferredName) : null;
+            }
+        }
+    }
+
+    @Override
+    public void updatePassword(String username, String encryptedPassword) throws SQLException {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE users SET password = ? WHERE username = ?")) {
+            stmt.setString(1, encryptedPassword);
+            stmt.setString(2, username);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.eventbookingsystem.repository;
+
+import org.example.eventbookingsystem.model.User;
+
+import java.sql.SQLException;
+
+/**
+ * Registered users. Passwords are passed in already encrypted.
+ */
+public interface UserRepository {
+
+    /**
+     * Returns the user with the username and password, or null if there is none.
+     */
+    User findByCredentials(String username, String encryptedPassword) throws SQLException;
+
+    boolean exists(String username) throws SQLException;
+
+    /**
+     * Registers a user.
+     *
+     * @return the new user, or null if it could not be created
+     */
+    User create(String username, String encryptedPassword, String preferredName) throws SQLException;
+
+    void updatePassword(String username, String encryptedPassword) throws SQLException;
+}
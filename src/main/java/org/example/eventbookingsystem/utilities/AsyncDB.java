@@ -0,0 +1,85 @@
+package org.example.eventbookingsystem.utilities;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs database work off the JavaFX Application Thread.
+ * Every task gets its own virtual thread, so a slow query or a lock wait never blocks the UI
+ * and never starves other tasks; the connection pool still bounds how many talk to SQLite at once.
+ * Results come back as CompletableFutures; cancelling one interrupts the thread running it.
+ * Screens normally go through {@link UiTasks}, which hands results back on the JavaFX thread.
+ */
+public class AsyncDB {
+
+    private static final Log log = Log.get(AsyncDB.class);
+
+    // How long exit waits for running work, such as a checkout, before interrupting it
+    private static final long SHUTDOWN_WAIT_SECONDS = Long.getLong("eventbooking.shutdownWaitSeconds", 10L);
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * A piece of background work that may throw.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T call() throws Exception;
+    }
+
+    private AsyncDB() {
+    }
+
+    /**
+     * Runs the work on a new virtual thread.
+     */
+    public static <T> CompletableFuture<T> supply(Work<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        // CompletableFuture.cancel does not reach the running thread on its own
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the work on a new virtual thread with a pooled connection, returned when the work ends.
+     */
+    public static <T> CompletableFuture<T> query(DBUtil.SqlWork<T> work) {
+        return supply(() -> {
+            try (Connection conn = DBUtil.getConnection()) {
+                return work.run(conn);
+            }
+        });
+    }
+
+    /**
+     * Stops accepting work and lets what is running finish, so a checkout or cart change is never cut off halfway.
+     * Only work still running after a bounded wait is interrupted. Called once when the application exits.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Background work still running after " + SHUTDOWN_WAIT_SECONDS + "s; interrupting it.");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.eventbookingsystem.utilities;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes log records to a rolling file on a single background thread.
+ * Callers only put a record into a bounded ring buffer, which does not block: when the buffer is full the
+ * record is dropped and counted, and the count is written to the file once there is room again.
+ * Only errors wait briefly for room instead, since they are rare and the ones worth keeping.
+ * The file is rolled over when it grows past its size limit, keeping a few older files next to it.
+ * Errors are also echoed to standard error, and with {@code -Deventbooking.logConsole=true} every record is.
+ * <p>
+ * Tuning, overridable with -D system properties at launch:
+ * {@code eventbooking.logDir} (default "logs"), {@code eventbooking.logMaxBytes} (5 MB),
+ * {@code eventbooking.logFiles} (older files kept, 3) and {@code eventbooking.logBufferSize} (8192 records).
+ */
+public class AsyncLogAppender {
+
+    private static final Path LOG_DIR = Path.of(System.getProperty("eventbooking.logDir", "logs"));
+    private static final String FILE_NAME = "eventbooking.log";
+    private static final long MAX_BYTES = Long.getLong("eventbooking.logMaxBytes", 5L * 1024 * 1024);
+    private static final int KEPT_FILES = Integer.getInteger("eventbooking.logFiles", 3);
+    private static final int BUFFER_SIZE = Integer.getInteger("eventbooking.logBufferSize", 8192);
+    private static final boolean CONSOLE = Boolean.getBoolean("eventbooking.logConsole");
+    private static final long ERROR_WAIT_MILLIS = 200;
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final AsyncLogAppender instance = new AsyncLogAppender();
+
+    // One log call; the message is already built, so the writer never touches caller state
+    private record LogRecord(long time, Log.Level level, String logger, String thread, String message, Throwable error) {
+    }
+
+    private final BlockingQueue<LogRecord> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Only touched by the writer thread
+    private FileOutputStream out;
+    // Bytes in the current file, which is what MAX_BYTES limits
+    private long fileSize;
+
+    private AsyncLogAppender() {
+        writerThread = new Thread(this::drainLoop, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        // Flushes what is left if the JVM exits without going through Application.stop
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "log-shutdown"));
+    }
+
+    public static AsyncLogAppender getInstance() {
+        return instance;
+    }
+
+    /**
+     * Queues one record. The record is dropped if the buffer is full or the appender stopped.
+     */
+    public void append(Log.Level level, String logger, String message, Throwable error) {
+        LogRecord record = new LogRecord(System.currentTimeMillis(), level, logger,
+                Thread.currentThread().getName(), message, error);
+        if (!running || !offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private boolean offer(LogRecord record) {
+        if (record.level() != Log.Level.ERROR) {
+            return buffer.offer(record);
+        }
+        try {
+            return buffer.offer(record, ERROR_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Records lost so far because the buffer was full
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops the writer after it has written everything already queued. Safe to call more than once.
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs on the log-writer thread
+    private void drainLoop() {
+        List<LogRecord> batch = new ArrayList<>();
+        while (running || !buffer.isEmpty()) {
+            try {
+                if (running) {
+                    batch.add(buffer.take());
+                }
+            } catch (InterruptedException e) {
+                // Woken by shutdown; fall through and write what is left
+            }
+            buffer.drainTo(batch);
+            if (!batch.isEmpty() || (!running && dropped.get() > 0)) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        closeFile();
+    }
+
+    private void write(List<LogRecord> batch) {
+        StringBuilder text = new StringBuilder();
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            text.append(TIMESTAMP.format(Instant.now())).append(" WARN  [log-writer] AsyncLogAppender - ")
+                    .append(lost).append(" log records dropped because the buffer was full")
+                    .append(System.lineSeparator());
+        }
+        for (LogRecord record : batch) {
+            String line = format(record);
+            text.append(line);
+            if (CONSOLE || record.level() == Log.Level.ERROR) {
+                System.err.print(line);
+            }
+        }
+        try {
+            if (out == null || fileSize >= MAX_BYTES) {
+                openFile();
+            }
+            // Encoded here so the size counts bytes on disk, not chars
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            fileSize += bytes.length;
+        } catch (IOException e) {
+            // Nowhere else to report it; keep the records visible rather than losing them
+            System.err.print(text);
+            closeFile();
+        }
+    }
+
+    private String format(LogRecord record) {
+        StringBuilder line = new StringBuilder(128)
+                .append(TIMESTAMP.format(Instant.ofEpochMilli(record.time())))
+                .append(' ').append(String.format("%-5s", record.level()))
+                .append(" [").append(record.thread()).append("] ")
+                .append(record.logger()).append(" - ")
+                .append(record.message())
+                .append(System.lineSeparator());
+        if (record.error() != null) {
+            StringWriter trace = new StringWriter();
+            record.error().printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+        return line.toString();
+    }
+
+    // Rolls eventbooking.log to eventbooking.log.1, .1 to .2 and so on when it is full
+    private void openFile() throws IOException {
+        closeFile();
+        Files.createDirectories(LOG_DIR);
+        Path file = LOG_DIR.resolve(FILE_NAME);
+        if (Files.exists(file) && Files.size(file) >= MAX_BYTES) {
+            for (int i = KEPT_FILES - 1; i >= 1; i--) {
+                Path older = LOG_DIR.resolve(FILE_NAME + "." + i);
+                if (Files.exists(older)) {
+                    Files.move(older, LOG_DIR.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (KEPT_FILES > 0) {
+                Files.move(file, LOG_DIR.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(file);
+            }
+        }
+        // A plain FileOutputStream, unlike a channel, is not closed when shutdown interrupts the writer mid-write
+        out = new FileOutputStream(file.toFile(), true);
+        fileSize = Files.size(file);
+    }
+
+    private void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Closing is best effort
+            }
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package org.example.eventbookingsystem.utilities;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small bounded pool of SQLite connections.
+ * Every physical connection is opened once in WAL mode with a busy timeout and the configured
+ * synchronous level, then handed out again and again instead of going through DriverManager per query.
+ * Callers keep using try-with-resources: closing a borrowed connection simply returns it to the pool.
+ * <p>
+ * Each connection also keeps its prepared statements open, keyed by their SQL text and evicted least recently
+ * used first, so a statement is parsed once per connection instead of on every call. Closing a statement
+ * taken from the cache resets it and puts it back; anything still open when the connection is returned
+ * is put back then.
+ */
+public class ConnectionPool {
+
+    // SQLite result code for "database is locked by another connection"
+    private static final int SQLITE_BUSY = 5;
+
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private final String url;
+    private final int maxSize;
+    private final String synchronousMode;
+    private final int busyTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long borrowTimeoutMillis;
+    private final int statementCacheSize;
+
+    // Idle connections, most recently returned first so hot connections stay warm
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    // One permit per connection that may exist (idle or borrowed)
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementPrepares = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    /**
+     * Prepared statement counters since the pool was created.
+     *
+     * @param hits      statements handed out from a connection's cache
+     * @param prepares  statements the database had to parse
+     * @param evictions statements closed to make room in a full cache
+     */
+    public record StatementStats(long hits, long prepares, long evictions) {
+
+        /**
+         * Share of requested statements served from the cache, from 0 to 1.
+         */
+        public double hitRate() {
+            long requests = hits + prepares;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    /**
+     * Creates a pool for the given JDBC url.
+     *
+     * @param url               JDBC url of the SQLite database
+     * @param maxSize           maximum number of physical connections
+     * @param synchronousMode   value for PRAGMA synchronous (OFF, NORMAL, FULL or EXTRA)
+     * @param busyTimeoutMillis how long SQLite waits on a locked database before reporting SQLITE_BUSY
+     */
+    public ConnectionPool(String url, int maxSize, String synchronousMode, int busyTimeoutMillis) {
+        this(url, maxSize, synchronousMode, busyTimeoutMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Same as above, with the number of prepared statements each connection keeps; 0 turns the cache off.
+     */
+    public ConnectionPool(String url, int maxSize, String synchronousMode, int busyTimeoutMillis, int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be greater than 0.");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.synchronousMode = synchronousMode;
+        this.busyTimeoutMillis = busyTimeoutMillis;
+        this.validationIntervalMillis = 30_000;
+        this.borrowTimeoutMillis = Math.max(busyTimeoutMillis, 1_000) * 2L;
+        this.permits = new Semaphore(maxSize, true);
+        this.statementCacheSize = Math.max(statementCacheSize, 0);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none is idle.
+     * Idle connections that have not been used for a while are validated first.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down.");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a free database connection (pool size " + maxSize + ").");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.poll()) != null) {
+                if (isUsable(pooled)) {
+                    return pooled.lease();
+                }
+                closeQuietly(pooled.physical);
+            }
+            return openPhysical().lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes every idle connection and refuses further borrowing.
+     * Connections that are still borrowed are closed when they are returned.
+     */
+    public void shutdown() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            closeQuietly(pooled.physical);
+        }
+    }
+
+    // Number of connections currently sitting idle in the pool
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public StatementStats getStatementStats() {
+        return new StatementStats(statementHits.sum(), statementPrepares.sum(), statementEvictions.sum());
+    }
+
+    /**
+     * Closes the cached statements of every idle connection, e.g. after a schema change,
+     * so no statement prepared against the old schema is handed out again.
+     */
+    public void clearStatementCaches() {
+        for (PooledConnection pooled : idle) {
+            pooled.closeStatements();
+        }
+    }
+
+    /**
+     * Returns true if the exception (or any cause) is SQLite reporting a locked database.
+     */
+    public static boolean isBusy(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                String message = sql.getMessage();
+                if ((sql.getErrorCode() & 0xFF) == SQLITE_BUSY
+                        || (message != null && (message.contains("SQLITE_BUSY") || message.contains("database is locked")))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Opens a new physical connection and applies the per-connection pragmas
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url);
+        try (Statement stmt = physical.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = " + synchronousMode);
+        } catch (SQLException e) {
+            closeQuietly(physical);
+            throw e;
+        }
+        return new PooledConnection(physical);
+    }
+
+    // Skips validation for recently used connections; the rest must answer isValid()
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pooled.lastReturned < validationIntervalMillis) {
+                return true;
+            }
+            return pooled.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Called when a borrowed connection is closed by the caller
+    private void release(PooledConnection pooled) {
+        try {
+            boolean healthy = !pooled.physical.isClosed();
+            if (healthy) {
+                pooled.takeBackStatements();
+            }
+            if (healthy && !pooled.physical.getAutoCommit()) {
+                // Never hand out a connection with a half-finished transaction
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (healthy && !closed) {
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                closeQuietly(pooled.physical);
+            }
+        } catch (SQLException e) {
+            closeQuietly(pooled.physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            // Nothing useful to do if the driver fails to close
+        }
+    }
+
+    // prepareStatement(sql), or with the default forward-only, read-only result sets spelled out
+    private static boolean isPlainQuery(Object[] args) {
+        return args.length == 1
+                || (args.length == 3 && (int) args[1] == ResultSet.TYPE_FORWARD_ONLY && (int) args[2] == ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * Wraps a physical connection and hands out proxies whose close() returns it to the pool.
+     * Also holds the connection's prepared statements; these are used by one lease at a time,
+     * and synchronized only because {@link #clearStatementCaches()} runs on another thread.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastReturned = System.currentTimeMillis();
+        // SQL -> statement, least recently used first
+        private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+
+        // Hands out the cached statement for the SQL to the given lease, preparing it on a miss.
+        // If that statement is still open (the same SQL twice at once), the caller gets a plain one instead.
+        private synchronized PreparedStatement prepare(String sql, Connection lease) throws SQLException {
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && cached.handler == null) {
+                statementHits.increment();
+                return cached.lease(lease);
+            }
+            statementPrepares.increment();
+            if (cached != null) {
+                return physical.prepareStatement(sql);
+            }
+            cached = new CachedStatement(this, physical.prepareStatement(sql));
+            statements.put(sql, cached);
+            evictOverflow();
+            return cached.lease(lease);
+        }
+
+        // Closes the least recently used statements that are not open until the cache fits again
+        private void evictOverflow() {
+            Iterator<CachedStatement> it = statements.values().iterator();
+            while (statements.size() > statementCacheSize && it.hasNext()) {
+                CachedStatement eldest = it.next();
+                if (eldest.handler == null) {
+                    it.remove();
+                    closeQuietly(eldest.statement);
+                    statementEvictions.increment();
+                }
+            }
+        }
+
+        // Called when a lease closes a cached statement
+        private synchronized void giveBack(CachedStatement cached) {
+            try {
+                cached.reset();
+            } catch (SQLException e) {
+                statements.values().remove(cached);
+                closeQuietly(cached.statement);
+            }
+        }
+
+        // Puts back statements the lease left open, so the next lease starts with a clean cache
+        private synchronized void takeBackStatements() {
+            for (Iterator<CachedStatement> it = statements.values().iterator(); it.hasNext(); ) {
+                CachedStatement cached = it.next();
+                if (cached.handler == null) {
+                    continue;
+                }
+                try {
+                    cached.reset();
+                } catch (SQLException e) {
+                    it.remove();
+                    closeQuietly(cached.statement);
+                }
+            }
+        }
+
+        private synchronized void closeStatements() {
+            for (Iterator<CachedStatement> it = statements.values().iterator(); it.hasNext(); ) {
+                CachedStatement cached = it.next();
+                if (cached.handler == null) {
+                    it.remove();
+                    closeQuietly(cached.statement);
+                }
+            }
+        }
+    }
+
+    /**
+     * One cached prepared statement; handler is the lease currently using it, or null while it is free.
+     */
+    private final class CachedStatement {
+        private final PooledConnection owner;
+        private final PreparedStatement statement;
+        private StatementHandler handler;
+        // Last result set handed out, closed when the statement goes back so its read transaction ends
+        private ResultSet results;
+
+        private CachedStatement(PooledConnection owner, PreparedStatement statement) {
+            this.owner = owner;
+            this.statement = statement;
+        }
+
+        private PreparedStatement lease(Connection connection) {
+            handler = new StatementHandler(this, connection);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    handler);
+        }
+
+        private void reset() throws SQLException {
+            handler.returned = true;
+            handler = null;
+            if (results != null) {
+                results.close();
+                results = null;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+    }
+
+    /**
+     * Forwards every call to a cached statement until the lease closes it.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        // The lease that prepared it, handed out by getConnection instead of the physical connection
+        private final Connection connection;
+        private boolean returned;
+
+        private StatementHandler(CachedStatement cached, Connection connection) {
+            this.cached = cached;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        cached.owner.giveBack(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || cached.statement.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    if (returned) {
+                        throw new SQLException("Statement has already been closed.");
+                    }
+                    return connection;
+                default:
+                    if (returned) {
+                        throw new SQLException("Statement has already been closed.");
+                    }
+            }
+            try {
+                Object result = method.invoke(cached.statement, args);
+                if (result instanceof ResultSet rs) {
+                    cached.results = rs;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Forwards every call to the physical connection until the lease is closed.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement":
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                    if (statementCacheSize > 0 && isPlainQuery(args)) {
+                        return pooled.prepare((String) args[0], (Connection) proxy);
+                    }
+                    statementPrepares.increment();
+                    break;
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,105 +1,134 @@
 package org.example.eventbookingsystem.utilities;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 /**
  * Utility class for handling database connection and setup for the Event Booking System.
- * This handles connecting to the SQLite database and creating tables if they do not exist.
+ * This handles connecting to the SQLite database and bringing its schema up to date.
  */
 public class DBUtil {
 
-    // Path to your SQLite database file
-    private static final String DB_URL = "jdbc:sqlite:src/event_booking.db";
+    private static final Log log = Log.get(DBUtil.class);
+
+    // The SQLite database file, e.g. -Deventbooking.db.url=jdbc:sqlite:/var/lib/booking/events.db
+    private static final String DB_URL = System.getProperty("eventbooking.db.url", "jdbc:sqlite:src/event_booking.db");
+
+    // Pool tuning, overridable with -D system properties at launch
+    private static final int POOL_SIZE = Integer.getInteger("eventbooking.db.poolSize", 4);
+    private static final String SYNCHRONOUS = System.getProperty("eventbooking.db.synchronous", "NORMAL");
+    private static final int BUSY_TIMEOUT_MS = Integer.getInteger("eventbooking.db.busyTimeoutMs", 5000);
+    private static final int BUSY_RETRIES = Integer.getInteger("eventbooking.db.busyRetries", 5);
+    private static final int STATEMENT_CACHE_SIZE =
+            Integer.getInteger("eventbooking.db.statementCacheSize", ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+
+    private static volatile ConnectionPool pool;
+    private static volatile boolean initialized;
+
+    /**
+     * A unit of database work that may be retried when SQLite reports the database is busy.
+     */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
 
     /**
      * Provides a reusable connection to the database.
      * Call this whenever you need to perform a SQL operation.
+     * The connection comes from a shared pool; closing it returns it to the pool.
      */
     public static Connection getConnection() throws SQLException {
-        System.out.println("Connecting to the database...");
-        return DriverManager.getConnection(DB_URL);
+        return getPool().getConnection();
     }
 
     /**
-     * Initializes the database by creating required tables if they are missing.
-     * This should be called once at application startup.
+     * Returns the shared connection pool, creating it on first use.
      */
-    public static void initializeDatabase() {
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            System.out.println("Database connection established. Now creating tables if not present...");
-
-            // SQL for Users table
-            String userTable = """
-                    CREATE TABLE IF NOT EXISTS users (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        username TEXT NOT NULL UNIQUE,
-                        password TEXT NOT NULL,
-                        preferredName TEXT NOT NULL
-                    );
-                    """;
-
-            // SQL for Events table
-            String eventsTable = """
-                    CREATE TABLE IF NOT EXISTS events (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        name TEXT NOT NULL,
-                        venue TEXT NOT NULL,
-                        day TEXT NOT NULL,
-                        price REAL NOT NULL,
-                        soldTickets INTEGER NOT NULL,
-                        totalTickets INTEGER NOT NULL,
-                        enabled BOOLEAN DEFAULT 1
-                    );
-                    """;
-
-            // SQL for Cart table
-            String cartTable = """
-                    CREATE TABLE IF NOT EXISTS cart (
-                          id INTEGER PRIMARY KEY AUTOINCREMENT,
-                          username TEXT NOT NULL,
-                          event_name TEXT NOT NULL,
-                          event_venue TEXT NOT NULL,
-                          event_day TEXT NOT NULL,
-                          event_price REAL NOT NULL,
-                          quantity INTEGER NOT NULL
-                    );
-                    """;
-
-            // SQL for Orders table
-            String ordersTable = """
-                    CREATE TABLE IF NOT EXISTS orders (
-                        orderNumber TEXT PRIMARY KEY,
-                        username TEXT NOT NULL,
-                        eventName TEXT NOT NULL,
-                        venue TEXT NOT NULL,
-                        day TEXT NOT NULL,
-                        quantity INTEGER NOT NULL,
-                        totalPrice REAL NOT NULL,
-                        dateTime TEXT NOT NULL
-                    );
-                    """;
-
-            // Executing all table creation statements
-            stmt.execute(userTable);
-            System.out.println("Users table created or already exists.");
-
-            stmt.execute(eventsTable);
-            System.out.println("Events table created or already exists.");
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DBUtil.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(DB_URL, POOL_SIZE, validSynchronousMode(SYNCHRONOUS), BUSY_TIMEOUT_MS, STATEMENT_CACHE_SIZE);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
 
-            stmt.execute(cartTable);
-            System.out.println("Cart table created or already exists.");
+    /**
+     * Runs the given work on a pooled connection, retrying with exponential backoff
+     * if SQLite keeps reporting SQLITE_BUSY after its own busy timeout.
+     */
+    public static <T> T runWithRetry(SqlWork<T> work) throws SQLException {
+        long backoffMillis = 25;
+        for (int attempt = 1; ; attempt++) {
+            try (Connection conn = getConnection()) {
+                return work.run(conn);
+            } catch (SQLException e) {
+                if (attempt >= BUSY_RETRIES || !ConnectionPool.isBusy(e)) {
+                    throw e;
+                }
+                log.warn("Database busy, retrying (attempt " + attempt + " of " + BUSY_RETRIES + ")...");
+                try {
+                    Thread.sleep(backoffMillis + (long) (Math.random() * backoffMillis));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 1000);
+            }
+        }
+    }
 
-            stmt.execute(ordersTable);
-            System.out.println("Orders table created or already exists.");
+    /**
+     * Closes all pooled connections. Called once when the application exits.
+     */
+    public static void shutdown() {
+        synchronized (DBUtil.class) {
+            if (pool != null) {
+                ConnectionPool.StatementStats stats = pool.getStatementStats();
+                log.info(String.format("Prepared statements: %d parsed, %d reused (%.0f%% hit rate), %d evicted.",
+                        stats.prepares(), stats.hits(), stats.hitRate() * 100, stats.evictions()));
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
 
-            System.out.println("All required tables have been initialized.");
+    // Only the documented SQLite levels are accepted; anything else falls back to NORMAL
+    private static String validSynchronousMode(String mode) {
+        String upper = mode.trim().toUpperCase();
+        return switch (upper) {
+            case "OFF", "NORMAL", "FULL", "EXTRA" -> upper;
+            default -> "NORMAL";
+        };
+    }
 
-        } catch (SQLException e) {
-            System.out.println("Error occurred during database initialization.");
-            e.printStackTrace();
+    /**
+     * Initializes the database by applying any pending schema migrations.
+     * This should be called once at application startup; repeated calls are ignored.
+     */
+    public static void initializeDatabase() {
+        if (initialized) {
+            return;
+        }
+        synchronized (DBUtil.class) {
+            if (initialized) {
+                return;
+            }
+            try (Connection conn = getConnection()) {
+                int version = SchemaMigrator.migrate(conn);
+                initialized = true;
+                log.info("Database schema is at version " + version + ".");
+            } catch (SQLException e) {
+                log.error("Error occurred during database initialization.", e);
+            }
+            // Statements prepared while migrating may describe tables as they were
+            getPool().clearStatementCaches();
         }
     }
 }
@@ -0,0 +1,128 @@
+package org.example.eventbookingsystem.utilities;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+
+import java.util.List;
+
+/**
+ * Fills a table a page at a time as the user scrolls.
+ * The first page loads on {@link #reload()}; after that, whenever a row within the prefetch window of the
+ * last loaded row is shown, the next page is fetched in the background and appended. Only what has been
+ * scrolled past is ever held in memory. Pages are fetched through {@link UiTasks}, so closing the window
+ * stops any load in progress. Sorting the table by a column only reorders what it shows; the next page
+ * always follows the last row fetched. All methods must be called on the JavaFX thread.
+ */
+public class KeysetPager<T> {
+
+    /**
+     * Fetches the page that follows the given row.
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+        /**
+         * @param last  the last row loaded so far, or null for the first page
+         * @param limit maximum rows to return; fewer means there are no more
+         */
+        List<T> fetch(T last, int limit) throws Exception;
+    }
+
+    private static final Log log = Log.get(KeysetPager.class);
+    private static final String LOAD_KEY = "page";
+
+    private final UiTasks tasks;
+    private final PageSource<T> source;
+    private final int pageSize;
+    private final int prefetch;
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+    private final ReadOnlyBooleanWrapper exhausted = new ReadOnlyBooleanWrapper(this, "exhausted", false);
+    // Cursor for the next page, kept apart from items, whose order a sorted table view must not decide
+    private T lastFetched;
+    private boolean loading;
+
+    /**
+     * @param prefetch how many rows before the end of what is loaded the next page is requested
+     */
+    public KeysetPager(UiTasks tasks, PageSource<T> source, int pageSize, int prefetch) {
+        this.tasks = tasks;
+        this.source = source;
+        this.pageSize = pageSize;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Shows the pager's rows in the table and loads more as the table's rows come into view.
+     */
+    public void bind(TableView<T> table) {
+        SortedList<T> sorted = new SortedList<>(items);
+        sorted.comparatorProperty().bind(table.comparatorProperty());
+        table.setItems(sorted);
+        table.setRowFactory(view -> new TableRow<>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                if (index >= 0) {
+                    ensureLoaded(index);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops every loaded row and starts again from the first page.
+     */
+    public void reload() {
+        items.clear();
+        lastFetched = null;
+        exhausted.set(false);
+        loading = false;
+        loadNext();
+    }
+
+    /**
+     * Requests the next page if the given row is close to the end of what is loaded.
+     */
+    public void ensureLoaded(int index) {
+        if (index >= items.size() - prefetch) {
+            loadNext();
+        }
+    }
+
+    // Rows loaded so far, in fetch order
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    // True once a page came back short, i.e. every row is loaded
+    public ReadOnlyBooleanProperty exhaustedProperty() {
+        return exhausted.getReadOnlyProperty();
+    }
+
+    private void loadNext() {
+        if (loading || exhausted.get()) {
+            return;
+        }
+        loading = true;
+        T last = lastFetched;
+        // Starting a load under the same key cancels one left over from before a reload
+        tasks.runLatest(LOAD_KEY, () -> source.fetch(last, pageSize), page -> {
+            loading = false;
+            if (!page.isEmpty()) {
+                lastFetched = page.get(page.size() - 1);
+            }
+            items.addAll(page);
+            if (page.size() < pageSize) {
+                exhausted.set(true);
+            }
+        }, error -> {
+            // The next row shown tries again
+            loading = false;
+            log.error("Failed to load the next page", error);
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.eventbookingsystem.utilities;
+
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Brings an observable list in line with fresh data by applying only the differences, matched by key.
+ * Rows that are still present stay the same objects, so selection, focus and scroll position survive,
+ * and the list fires one change for the removed rows and one small change per added row instead of a full reset.
+ * A reorder of the surviving rows, or more added and removed rows than are cheap to apply one by one,
+ * replaces the list contents in one change instead; the surviving rows are still the same objects.
+ */
+public class ListDiff {
+
+    /**
+     * Counts of what an apply call changed.
+     */
+    public record Result(int added, int removed, int updated) {
+        public boolean isEmpty() {
+            return added == 0 && removed == 0 && updated == 0;
+        }
+    }
+
+    // Most added plus removed rows applied one by one before the whole list is replaced instead
+    private static final int MAX_STEPS = 64;
+
+    private ListDiff() {
+    }
+
+    /**
+     * Makes target hold one row per element of fresh, in fresh's order.
+     *
+     * @param target  the list shown on screen; must be called on the JavaFX thread if it backs a control
+     * @param fresh   the new data
+     * @param key     identity of a row, e.g. the event id
+     * @param create  makes the row to insert for a new element
+     * @param update  copies a fresh element onto the existing row with the same key; returns true if anything changed
+     */
+    public static <T, K> Result apply(ObservableList<T> target, List<T> fresh, Function<T, K> key,
+                                      Function<T, T> create, BiPredicate<T, T> update) {
+        Set<K> freshKeys = new HashSet<>();
+        for (T item : fresh) {
+            freshKeys.add(key.apply(item));
+        }
+
+        // Rows staying on screen, in their current order, and the rest by identity
+        List<T> kept = new ArrayList<>(target.size());
+        Set<T> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<K, T> existing = new HashMap<>();
+        for (T row : target) {
+            K k = key.apply(row);
+            if (freshKeys.contains(k)) {
+                kept.add(row);
+                existing.put(k, row);
+            } else {
+                gone.add(row);
+            }
+        }
+
+        // The rows target should end up with, and whether the kept rows are already in that order
+        List<T> rows = new ArrayList<>(fresh.size());
+        int added = 0;
+        int updated = 0;
+        int next = 0;
+        boolean inOrder = true;
+        for (T item : fresh) {
+            T row = existing.get(key.apply(item));
+            if (row == null) {
+                rows.add(create.apply(item));
+                added++;
+                continue;
+            }
+            if (update.test(row, item)) {
+                updated++;
+            }
+            if (inOrder && (next >= kept.size() || kept.get(next++) != row)) {
+                inOrder = false;
+            }
+            rows.add(row);
+        }
+        inOrder &= next == kept.size();
+
+        // Every single-row step shifts the rest of the list, so a reorder or a large change is one setAll instead
+        if (!inOrder || gone.size() + added > MAX_STEPS) {
+            target.setAll(rows);
+        } else {
+            if (!gone.isEmpty()) {
+                // One pass and one list change; removeAll asks the set about each row without equals() or a scan
+                target.removeAll(gone);
+            }
+            // Kept rows are in order, so new rows only need inserting where they belong
+            int toInsert = added;
+            for (int i = 0; i < rows.size() && toInsert > 0; i++) {
+                if (i >= target.size() || target.get(i) != rows.get(i)) {
+                    target.add(i, rows.get(i));
+                    toInsert--;
+                }
+            }
+        }
+        return new Result(added, gone.size(), updated);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.eventbookingsystem.utilities;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Leveled logger used throughout the application instead of printing to the console.
+ * Messages below the configured level cost one comparison; the supplier variants do not even build
+ * the message string then. Enabled messages are handed to {@link AsyncLogAppender}, which writes them
+ * to a rolling log file on its own thread, so callers never wait for disk or console I/O.
+ * <p>
+ * The level is set with {@code -Deventbooking.logLevel=DEBUG|INFO|WARN|ERROR} (default INFO).
+ */
+public final class Log {
+
+    /**
+     * Severity of a message, from least to most severe.
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final Level THRESHOLD = parseLevel(System.getProperty("eventbooking.logLevel", "INFO"));
+
+    private final String name;
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns a logger named after the given class.
+     */
+    public static Log get(Class<?> owner) {
+        return new Log(owner.getSimpleName());
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    // Fine-grained detail such as model objects being created or changed
+    public void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    // Normal application events such as logins, checkouts and windows opening
+    public void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, message.get(), null);
+        }
+    }
+
+    // Something went wrong but the application carries on, e.g. invalid input or a retry
+    public void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public void warn(String message, Throwable error) {
+        log(Level.WARN, message, error);
+    }
+
+    // A failure the user will notice, usually with the exception that caused it
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    private void log(Level level, String message, Throwable error) {
+        if (isEnabled(level)) {
+            AsyncLogAppender.getInstance().append(level, name, message, error);
+        }
+    }
+
+    /**
+     * Writes out everything still queued and closes the log file. Called once when the application exits.
+     */
+    public static void shutdown() {
+        AsyncLogAppender.getInstance().shutdown();
+    }
+
+    // Unknown names fall back to INFO rather than failing at startup
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.eventbookingsystem.utilities;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates unique, strictly increasing 64-bit order ids without touching the orders table.
+ * An id is laid out as [41 bits milliseconds since 2025-01-01][10 bits node id][12 bits sequence],
+ * so each terminal (node) can issue up to 4096 ids per millisecond with a single CAS.
+ *
+ * To survive restarts and clock changes, the generator leases blocks of time ahead of use:
+ * before issuing an id in a millisecond past the current lease, it persists a new high-water mark.
+ * After a restart it resumes from that mark, so an id handed out before the restart is never issued again.
+ */
+public class OrderIdGenerator {
+
+    private static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private static volatile OrderIdGenerator instance;
+
+    /**
+     * Where the lease high-water mark lives between runs.
+     */
+    public interface LeaseStore {
+        // Returns the persisted high-water tick, or 0 if nothing was stored yet
+        long load();
+
+        // Durably records that ticks below highWater may have been used
+        void save(long highWater);
+    }
+
+    private final long nodeId;
+    private final long leaseMillis;
+    private final LeaseStore leaseStore;
+    private final LongSupplier clock;
+
+    // Last id handed out; every new id is CAS-ed in so ids are strictly increasing
+    private final AtomicLong lastId;
+    // Ids may be issued for ticks strictly below this value without touching the store
+    private volatile long leaseEnd;
+
+    /**
+     * Creates a generator for one node.
+     *
+     * @param nodeId      id of this terminal, 0 to 1023; terminals sharing a database must use different ids
+     * @param leaseMillis how far ahead each lease reaches; larger values mean fewer writes but a bigger jump after restart
+     * @param leaseStore  persistent home of the high-water mark
+     * @param clock       current time in epoch milliseconds
+     */
+    public OrderIdGenerator(long nodeId, long leaseMillis, LeaseStore leaseStore, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ".");
+        }
+        if (leaseMillis <= 0) {
+            throw new IllegalArgumentException("Lease length must be greater than 0.");
+        }
+        this.nodeId = nodeId;
+        this.leaseMillis = leaseMillis;
+        this.leaseStore = leaseStore;
+        this.clock = clock;
+
+        // Treat the whole previous lease as used: the next id starts after the stored high-water mark
+        long highWater = leaseStore.load();
+        this.leaseEnd = highWater;
+        this.lastId = new AtomicLong(compose(highWater, SEQUENCE_MASK));
+    }
+
+    /**
+     * Returns the shared generator backed by the id_leases table.
+     * The node id comes from -Deventbooking.nodeId (default 0).
+     */
+    public static OrderIdGenerator getInstance() {
+        OrderIdGenerator current = instance;
+        if (current == null) {
+            synchronized (OrderIdGenerator.class) {
+                current = instance;
+                if (current == null) {
+                    long node = Long.getLong("eventbooking.nodeId", 0L);
+                    long lease = Long.getLong("eventbooking.idLeaseMillis", 60_000L);
+                    current = new OrderIdGenerator(node, lease, new DatabaseLeaseStore("order_id:" + node), System::currentTimeMillis);
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the next id. Lock-free except when a new lease block has to be persisted.
+     */
+    public long nextId() {
+        while (true) {
+            long last = lastId.get();
+            long lastTick = last >>> TIMESTAMP_SHIFT;
+            long lastSequence = last & SEQUENCE_MASK;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+
+            long tick;
+            long sequence;
+            if (now > lastTick) {
+                tick = now;
+                sequence = 0;
+            } else if (lastSequence < SEQUENCE_MASK) {
+                // Same millisecond, or the clock stepped back: keep counting on the last tick
+                tick = lastTick;
+                sequence = lastSequence + 1;
+            } else {
+                // Sequence exhausted for this tick: borrow the next millisecond
+                tick = lastTick + 1;
+                sequence = 0;
+            }
+
+            if (tick >= leaseEnd) {
+                renewLease(tick);
+                continue;
+            }
+
+            long id = compose(tick, sequence);
+            if (lastId.compareAndSet(last, id)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Returns the next id formatted as an order number.
+     */
+    public String nextOrderNumber() {
+        return Long.toString(nextId());
+    }
+
+    // Extends the lease past the given tick; only one thread writes, the rest re-check and retry
+    private synchronized void renewLease(long tick) {
+        if (tick < leaseEnd) {
+            return;
+        }
+        long newEnd = tick + leaseMillis;
+        leaseStore.save(newEnd);
+        leaseEnd = newEnd;
+    }
+
+    private long compose(long tick, long sequence) {
+        return (tick << TIMESTAMP_SHIFT) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * Keeps one high-water mark per generator name in the id_leases table.
+     * Writes use their own pooled connection so a lease survives even if the caller's transaction rolls back.
+     */
+    public static class DatabaseLeaseStore implements LeaseStore {
+        private final String name;
+
+        public DatabaseLeaseStore(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public long load() {
+            try (Connection conn = DBUtil.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT highWater FROM id_leases WHERE name = ?")) {
+                stmt.setString(1, name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0;
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not read id lease '" + name + "'.", e);
+            }
+        }
+
+        @Override
+        public void save(long highWater) {
+            try {
+                DBUtil.runWithRetry(conn -> {
+                    try (PreparedStatement stmt = conn.prepareStatement("""
+                            INSERT INTO id_leases (name, highWater) VALUES (?, ?)
+                            ON CONFLICT(name) DO UPDATE SET highWater = MAX(highWater, excluded.highWater)
+                            """)) {
+                        stmt.setString(1, name);
+                        stmt.setLong(2, highWater);
+                        return stmt.executeUpdate();
+                    }
+                });
+            } catch (SQLException e) {
+                // Issuing ids past an unrecorded lease could repeat them after a restart
+                throw new IllegalStateException("Could not persist id lease '" + name + "'.", e);
+            }
+        }
+    }
+}
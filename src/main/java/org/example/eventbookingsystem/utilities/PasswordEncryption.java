@@ -6,6 +6,8 @@ package org.example.eventbookingsystem.utilities;
  */
 public class PasswordEncryption {
 
+    private static final Log log = Log.get(PasswordEncryption.class);
+
     /**
      * Encrypts the given password by shifting each character by 3 positions.
      * - Digits (0–9) are rotated (e.g., 9 becomes 2).
@@ -16,7 +18,7 @@ public class PasswordEncryption {
      * @return Encrypted password
      */
     public static String encryptPassword(String password) {
-        System.out.println("Encrypting password using simple shift method...");
+        log.debug("Encrypting password using simple shift method...");
 
         StringBuilder sb = new StringBuilder();
 
@@ -36,7 +38,7 @@ public class PasswordEncryption {
             }
         }
 
-        System.out.println("Password encrypted successfully.");
+        log.debug("Password encrypted successfully.");
         return sb.toString();
     }
 }
@@ -0,0 +1,297 @@
+package org.example.eventbookingsystem.utilities;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Brings the database schema up to date at startup.
+ * Each migration has a version number and runs exactly once, in order, inside its own transaction.
+ * Applied versions are recorded in the schema_version table so restarts skip work that is already done.
+ * To change the schema, append a new migration to the end of the list — never edit one that has shipped.
+ */
+public class SchemaMigrator {
+
+    private static final Log log = Log.get(SchemaMigrator.class);
+
+    /**
+     * One ordered schema change.
+     *
+     * @param version     strictly increasing version number
+     * @param description short human-readable summary stored alongside the version
+     * @param statements  SQL statements executed in order
+     */
+    public record Migration(int version, String description, String... statements) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create users, events, cart and orders tables",
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        username TEXT NOT NULL UNIQUE,
+                        password TEXT NOT NULL,
+                        preferredName TEXT NOT NULL
+                    );
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS events (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        name TEXT NOT NULL,
+                        venue TEXT NOT NULL,
+                        day TEXT NOT NULL,
+                        price REAL NOT NULL,
+                        soldTickets INTEGER NOT NULL,
+                        totalTickets INTEGER NOT NULL,
+                        enabled BOOLEAN DEFAULT 1
+                    );
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS cart (
+                          id INTEGER PRIMARY KEY AUTOINCREMENT,
+                          username TEXT NOT NULL,
+                          event_name TEXT NOT NULL,
+                          event_venue TEXT NOT NULL,
+                          event_day TEXT NOT NULL,
+                          event_price REAL NOT NULL,
+                          quantity INTEGER NOT NULL
+                    );
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS orders (
+                        orderNumber TEXT PRIMARY KEY,
+                        username TEXT NOT NULL,
+                        eventName TEXT NOT NULL,
+                        venue TEXT NOT NULL,
+                        day TEXT NOT NULL,
+                        quantity INTEGER NOT NULL,
+                        totalPrice REAL NOT NULL,
+                        dateTime TEXT NOT NULL
+                    );
+                    """),
+
+            new Migration(2, "Index cart, orders and events lookups",
+                    // Merge duplicate cart lines for the same user and event before making them unique
+                    """
+                    UPDATE cart SET quantity = (
+                        SELECT SUM(c2.quantity) FROM cart c2
+                        WHERE c2.username = cart.username AND c2.event_name = cart.event_name
+                          AND c2.event_venue = cart.event_venue AND c2.event_day = cart.event_day)
+                    WHERE id IN (SELECT MIN(id) FROM cart GROUP BY username, event_name, event_venue, event_day);
+                    """,
+                    "DELETE FROM cart WHERE id NOT IN (SELECT MIN(id) FROM cart GROUP BY username, event_name, event_venue, event_day);",
+                    // One line per user and event; its username prefix also serves "WHERE username = ?"
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_cart_user_event ON cart(username, event_name, event_venue, event_day);",
+                    // Removing an event from every cart matches on the event alone
+                    "CREATE INDEX IF NOT EXISTS idx_cart_event ON cart(event_name, event_venue, event_day);",
+                    // Order history sorts a single user's orders by time
+                    "CREATE INDEX IF NOT EXISTS idx_orders_user_time ON orders(username, dateTime);",
+                    // The admin view sorts every order by time
+                    "CREATE INDEX IF NOT EXISTS idx_orders_time ON orders(dateTime);",
+                    // Duplicate check on add and id lookups by name/venue/day
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_events_name_venue_day ON events(name, venue, day);"),
+
+            new Migration(3, "Reference events by id from cart and orders",
+                    """
+                    CREATE TABLE cart_new (
+                          id INTEGER PRIMARY KEY AUTOINCREMENT,
+                          username TEXT NOT NULL,
+                          event_id INTEGER NOT NULL REFERENCES events(id),
+                          event_price REAL NOT NULL,
+                          quantity INTEGER NOT NULL
+                    );
+                    """,
+                    // Cart lines whose event no longer exists cannot be checked out, so they are dropped here
+                    """
+                    INSERT INTO cart_new (id, username, event_id, event_price, quantity)
+                    SELECT c.id, c.username, e.id, c.event_price, c.quantity
+                    FROM cart c JOIN events e
+                      ON e.name = c.event_name AND e.venue = c.event_venue AND e.day = c.event_day;
+                    """,
+                    "DROP TABLE cart;",
+                    "ALTER TABLE cart_new RENAME TO cart;",
+                    "CREATE UNIQUE INDEX ux_cart_user_event ON cart(username, event_id);",
+                    "CREATE INDEX idx_cart_event ON cart(event_id);",
+                    // Orders keep their name/venue/day snapshot as the historical record and gain the event id
+                    "ALTER TABLE orders ADD COLUMN event_id INTEGER REFERENCES events(id);",
+                    """
+                    UPDATE orders SET event_id = (
+                        SELECT e.id FROM events e
+                        WHERE e.name = orders.eventName AND e.venue = orders.venue AND e.day = orders.day);
+                    """,
+                    "CREATE INDEX idx_orders_event ON orders(event_id);"),
+
+            new Migration(4, "Add id lease table for order id generation",
+                    """
+                    CREATE TABLE id_leases (
+                        name TEXT PRIMARY KEY,
+                        highWater INTEGER NOT NULL
+                    );
+                    """),
+
+            new Migration(5, "Add seat hold expiry to cart lines",
+                    "ALTER TABLE cart ADD COLUMN hold_expires_at INTEGER NOT NULL DEFAULT 0;",
+                    // Existing lines get a fresh 15 minute hold rather than being released the moment we upgrade
+                    "UPDATE cart SET hold_expires_at = CAST(strftime('%s', 'now') AS INTEGER) * 1000 + 15 * 60 * 1000;",
+                    "CREATE INDEX idx_cart_hold_expiry ON cart(hold_expires_at);"),
+
+            new Migration(6, "Keyset order paging indexes and order counters",
+                    // Order history pages walk (dateTime, orderNumber) backwards; these replace the dateTime-only indexes
+                    "DROP INDEX IF EXISTS idx_orders_time;",
+                    "DROP INDEX IF EXISTS idx_orders_user_time;",
+                    "CREATE INDEX idx_orders_time_number ON orders(dateTime, orderNumber);",
+                    "CREATE INDEX idx_orders_user_time_number ON orders(username, dateTime, orderNumber);",
+                    // Row counts per scope: 'all' for every order, 'user:<name>' per user, kept current by triggers
+                    """
+                    CREATE TABLE order_counts (
+                        scope TEXT PRIMARY KEY,
+                        total INTEGER NOT NULL
+                    );
+                    """,
+                    """
+                    INSERT INTO order_counts (scope, total)
+                    SELECT 'all', COUNT(*) FROM orders
+                    UNION ALL
+                    SELECT 'user:' || username, COUNT(*) FROM orders GROUP BY username;
+                    """,
+                    """
+                    CREATE TRIGGER trg_orders_count_insert AFTER INSERT ON orders
+                    BEGIN
+                        INSERT INTO order_counts (scope, total) VALUES ('all', 1)
+                            ON CONFLICT(scope) DO UPDATE SET total = total + 1;
+                        INSERT INTO order_counts (scope, total) VALUES ('user:' || NEW.username, 1)
+                            ON CONFLICT(scope) DO UPDATE SET total = total + 1;
+                    END;
+                    """,
+                    """
+                    CREATE TRIGGER trg_orders_count_delete AFTER DELETE ON orders
+                    BEGIN
+                        UPDATE order_counts SET total = total - 1 WHERE scope IN ('all', 'user:' || OLD.username);
+                    END;
+                    """),
+
+            new Migration(7, "Add checkpoints for incremental order exports",
+                    // One row per export destination: the newest order key already written there
+                    """
+                    CREATE TABLE export_checkpoints (
+                        destination TEXT PRIMARY KEY,
+                        dateTime TEXT NOT NULL,
+                        orderNumber TEXT NOT NULL,
+                        segment INTEGER NOT NULL,
+                        updatedAt TEXT NOT NULL
+                    );
+                    """),
+
+            new Migration(8, "Add per-event hourly sales summary",
+                    // Checkout adds to these rows in its own transaction; hour is "yyyy-MM-dd HH:00"
+                    """
+                    CREATE TABLE sales_summary (
+                        event_id INTEGER NOT NULL,
+                        hour TEXT NOT NULL,
+                        tickets INTEGER NOT NULL,
+                        revenue REAL NOT NULL,
+                        orders INTEGER NOT NULL,
+                        PRIMARY KEY (event_id, hour)
+                    );
+                    """,
+                    // Orders from before migration 3 whose event no longer existed have no id and are left out
+                    """
+                    INSERT INTO sales_summary (event_id, hour, tickets, revenue, orders)
+                    SELECT event_id, substr(dateTime, 1, 13) || ':00', SUM(quantity), SUM(totalPrice), COUNT(*)
+                    FROM orders WHERE event_id IS NOT NULL
+                    GROUP BY event_id, substr(dateTime, 1, 13);
+                    """),
+
+            new Migration(9, "Store money as integer cents",
+                    // Each REAL amount becomes an INTEGER cents column, rounded once here and never again
+                    "ALTER TABLE events ADD COLUMN price_cents INTEGER NOT NULL DEFAULT 0;",
+                    "UPDATE events SET price_cents = CAST(ROUND(price * 100) AS INTEGER);",
+                    "ALTER TABLE events DROP COLUMN price;",
+                    "ALTER TABLE cart ADD COLUMN price_cents INTEGER NOT NULL DEFAULT 0;",
+                    "UPDATE cart SET price_cents = CAST(ROUND(event_price * 100) AS INTEGER);",
+                    "ALTER TABLE cart DROP COLUMN event_price;",
+                    "ALTER TABLE orders ADD COLUMN total_cents INTEGER NOT NULL DEFAULT 0;",
+                    "UPDATE orders SET total_cents = CAST(ROUND(totalPrice * 100) AS INTEGER);",
+                    "ALTER TABLE orders DROP COLUMN totalPrice;",
+                    // Revenue is re-added from the converted orders so the summary matches them to the cent
+                    "ALTER TABLE sales_summary ADD COLUMN revenue_cents INTEGER NOT NULL DEFAULT 0;",
+                    """
+                    UPDATE sales_summary SET revenue_cents = COALESCE((
+                        SELECT SUM(o.total_cents) FROM orders o
+                        WHERE o.event_id = sales_summary.event_id
+                          AND substr(o.dateTime, 1, 13) || ':00' = sales_summary.hour), 0);
+                    """,
+                    "ALTER TABLE sales_summary DROP COLUMN revenue;")
+    );
+
+    /**
+     * Applies every migration newer than the version recorded in the database.
+     *
+     * @return the schema version after migrating
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        description TEXT NOT NULL,
+                        appliedAt TEXT NOT NULL
+                    );
+                    """);
+        }
+
+        int current = currentVersion(conn);
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            apply(conn, migration);
+            current = migration.version();
+        }
+        return current;
+    }
+
+    /**
+     * Returns the highest migration version recorded in the database, or 0 for a fresh database.
+     */
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Latest version this build knows about
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    // Runs one migration and records it, all or nothing
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement();
+             PreparedStatement record = conn.prepareStatement(
+                     "INSERT INTO schema_version (version, description, appliedAt) VALUES (?, ?, ?)")) {
+            for (String sql : migration.statements()) {
+                stmt.execute(sql);
+            }
+            record.setInt(1, migration.version());
+            record.setString(2, migration.description());
+            record.setString(3, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+            record.executeUpdate();
+            conn.commit();
+            log.info("Applied schema migration " + migration.version() + ": " + migration.description());
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema migration " + migration.version() + " failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -6,6 +6,8 @@ package org.example.eventbookingsystem.utilities;
  */
 public class Session {
 
+    private static final Log log = Log.get(Session.class);
+
     // Keeps track of the currently logged-in user's username
     private static String loggedInUsername;
 
@@ -16,7 +18,7 @@ public class Session {
      */
     public static void setLoggedInUsername(String username) {
         loggedInUsername = username;
-        System.out.println("Session started for user: " + username);
+        log.info("Session started for user: " + username);
     }
 
     /**
@@ -33,7 +35,7 @@ public class Session {
      */
     public static boolean isAdmin() {
         boolean isAdminUser = "admin".equalsIgnoreCase(loggedInUsername);
-        System.out.println("Checking admin status: " + isAdminUser);
+        log.debug(() -> "Checking admin status: " + isAdminUser);
         return isAdminUser;
     }
 
@@ -42,7 +44,7 @@ public class Session {
      * Resets the stored username to null.
      */
     public static void clear() {
-        System.out.println("Session cleared. Logging out user: " + loggedInUsername);
+        log.info("Session cleared. Logging out user: " + loggedInUsername);
         loggedInUsername = null;
     }
 }
@@ -0,0 +1,177 @@
+package org.example.eventbookingsystem.utilities;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Background work owned by one window.
+ * Work runs through {@link AsyncDB}; its result is handed back on the JavaFX thread, but only while the
+ * window is still open. Reads ({@link #read}, {@link #runLatest}) are interrupted when the window closes.
+ * Changes ({@link #run}) are never interrupted, since stopping one halfway could leave seats reserved with no
+ * cart line behind them; closing the window only drops their result. While any task runs the window shows
+ * a wait cursor, and {@link #busyProperty()} is true for screens that want their own indicator.
+ * All methods must be called on the JavaFX thread.
+ */
+public class UiTasks {
+
+    private static final Log log = Log.get(UiTasks.class);
+
+    private final Set<CompletableFuture<?>> pending = new HashSet<>();
+    // The reads among the pending tasks, which closing the window interrupts
+    private final Set<CompletableFuture<?>> cancellable = new HashSet<>();
+    // Latest task per key, for reloads where only the newest result matters
+    private final Map<String, CompletableFuture<?>> latest = new HashMap<>();
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(this, "busy", false);
+    private boolean closed;
+
+    /**
+     * Ties this task list to the window that will hold the given node.
+     * The node usually is not in a scene yet when a controller initializes, so this waits for it.
+     */
+    public void attach(Node node) {
+        node.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (scene != null) {
+                watch(scene);
+            }
+        });
+        if (node.getScene() != null) {
+            watch(node.getScene());
+        }
+    }
+
+    /**
+     * Runs a change in the background and passes its result to onSuccess on the JavaFX thread.
+     * Failures are logged.
+     */
+    public <T> CompletableFuture<T> run(AsyncDB.Work<T> work, Consumer<T> onSuccess) {
+        return run(work, onSuccess, error -> log.error("Background task failed", error));
+    }
+
+    /**
+     * Runs a change in the background and passes its result or failure back on the JavaFX thread.
+     * The change always runs to the end: cancelling the returned future only drops the result.
+     */
+    public <T> CompletableFuture<T> run(AsyncDB.Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return start(work, onSuccess, onError, false);
+    }
+
+    /**
+     * Runs a read in the background and passes its result to onSuccess on the JavaFX thread.
+     * Failures are logged.
+     */
+    public <T> CompletableFuture<T> read(AsyncDB.Work<T> work, Consumer<T> onSuccess) {
+        return read(work, onSuccess, error -> log.error("Background task failed", error));
+    }
+
+    /**
+     * Runs a read in the background and passes its result or failure back on the JavaFX thread.
+     * Cancelling the returned future, or closing the window, interrupts it.
+     */
+    public <T> CompletableFuture<T> read(AsyncDB.Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        return start(work, onSuccess, onError, true);
+    }
+
+    private <T> CompletableFuture<T> start(AsyncDB.Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError,
+                                           boolean interruptible) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Window has been closed."));
+        }
+        CompletableFuture<T> future = AsyncDB.supply(work);
+        // A change hands out a copy, whose cancellation never reaches the thread doing the work
+        CompletableFuture<T> handle = interruptible ? future : future.copy();
+        pending.add(future);
+        if (interruptible) {
+            cancellable.add(future);
+        }
+        busy.set(true);
+        future.whenComplete((value, error) -> Platform.runLater(() -> {
+            pending.remove(future);
+            cancellable.remove(future);
+            busy.set(!pending.isEmpty());
+            if (closed || handle.isCancelled()) {
+                return;
+            }
+            if (error == null) {
+                onSuccess.accept(value);
+            } else {
+                onError.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        }));
+        return handle;
+    }
+
+    /**
+     * Like {@link #read(AsyncDB.Work, Consumer)}, but first cancels the previous task started with the same key,
+     * so an older, slower reload can never overwrite a newer one.
+     */
+    public <T> CompletableFuture<T> runLatest(String key, AsyncDB.Work<T> work, Consumer<T> onSuccess) {
+        return runLatest(key, work, onSuccess, error -> log.error("Background task failed", error));
+    }
+
+    /**
+     * Like {@link #runLatest(String, AsyncDB.Work, Consumer)}, with a failure handler.
+     */
+    public <T> CompletableFuture<T> runLatest(String key, AsyncDB.Work<T> work, Consumer<T> onSuccess,
+                                              Consumer<Throwable> onError) {
+        CompletableFuture<?> previous = latest.get(key);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        CompletableFuture<T> future = read(work, onSuccess, onError);
+        latest.put(key, future);
+        future.whenComplete((value, error) -> Platform.runLater(() -> latest.remove(key, future)));
+        return future;
+    }
+
+    /**
+     * Interrupts every pending read and ignores any result still on its way; pending changes finish unseen.
+     */
+    public void cancelAll() {
+        closed = true;
+        for (CompletableFuture<?> future : Set.copyOf(cancellable)) {
+            future.cancel(true);
+        }
+        pending.clear();
+        cancellable.clear();
+        latest.clear();
+        busy.set(false);
+    }
+
+    // True while at least one task is running
+    public ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    private void watch(Scene scene) {
+        busy.addListener((obs, wasBusy, isBusy) -> scene.setCursor(isBusy ? Cursor.WAIT : Cursor.DEFAULT));
+        scene.windowProperty().addListener((obs, oldWindow, window) -> {
+            if (window == null) {
+                // The scene was swapped out of its window, so nobody is left to show results
+                cancelAll();
+            } else {
+                watch(window);
+            }
+        });
+        if (scene.getWindow() != null) {
+            watch(scene.getWindow());
+        }
+    }
+
+    private void watch(Window window) {
+        window.addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> cancelAll());
+    }
+}
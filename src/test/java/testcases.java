@@ -1,16 +1,33 @@
 // Unit test class to validate critical functionalities of the event booking system
 import org.example.eventbookingsystem.model.Event;
 import org.example.eventbookingsystem.model.CartItem;
+import org.example.eventbookingsystem.model.EventRegistry;
+import org.example.eventbookingsystem.model.Money;
+import org.example.eventbookingsystem.model.Order;
+import org.example.eventbookingsystem.repository.*;
 import org.example.eventbookingsystem.utilities.*;
 import org.example.eventbookingsystem.controller.*;
 
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
+import java.sql.SQLException;
 
 public class testcases {
 
+    // The cart tests run on fresh in-memory repositories, so carts start empty on every run and seats reserved
+    // for quantity changes come from events 1 to 7 here rather than from whatever database is on disk
+    @BeforeAll
+    static void useInMemoryRepositories() throws SQLException {
+        Repositories repos = Repositories.inMemory();
+        for (int i = 1; i <= 7; i++) {
+            repos.events().addIfAbsent("Event " + i, "Venue", "Mon", Money.parse("10.00"), 100);
+        }
+        Repositories.install(repos);
+    }
+
     // This test ensures that the encryption function always produces the same output
     // for the same input. Useful to ensure password hashing is consistent.
     @Test
@@ -34,7 +51,7 @@ public class testcases {
     @Test
     public void testAddToCartAndRetrieve() {
         CartManager manager = CartManager.getInstance();
-        Event event = new Event(1, "Concert", "Hall A", "Sat", 20.0, 0, 100, true);
+        Event event = new Event(1, "Concert", "Hall A", "Sat", Money.ofCents(2000), 0, 100, true);
         CartItem item = new CartItem(event, 2, event.getPrice());
         manager.addToCart("testUser", item);
 
@@ -47,19 +64,19 @@ public class testcases {
     @Test
     public void testCartTotalCalculation() {
         CartManager manager = CartManager.getInstance();
-        Event event = new Event(2, "Show", "Auditorium", "Sun", 15.0, 0, 50, true);
+        Event event = new Event(2, "Show", "Auditorium", "Sun", Money.ofCents(1500), 0, 50, true);
         CartItem item = new CartItem(event, 3, event.getPrice());
         manager.addToCart("calcUser", item);
 
-        double total = manager.getTotalAmount("calcUser");
-        assertEquals(45.0, total);
+        Money total = manager.getTotalAmount("calcUser");
+        assertEquals(Money.ofCents(4500), total);
     }
 
     // This test updates the quantity of an item in the cart and checks if the change is reflected.
     @Test
     void testUpdateCartItemQuantity() {
         CartManager manager = CartManager.getInstance();
-        Event event = new Event(2, "Drama", "Stage A", "Fri", 30.0, 0, 50, true);
+        Event event = new Event(2, "Drama", "Stage A", "Fri", Money.ofCents(3000), 0, 50, true);
         CartItem item = new CartItem(event, 1, event.getPrice());
         String user = "updateUser";
 
@@ -76,13 +93,13 @@ public class testcases {
         CartManager manager = CartManager.getInstance();
         String user = "priceUser";
 
-        Event e1 = new Event(4, "Play", "Main Hall", "Wed", 50.0, 0, 80, true);
-        Event e2 = new Event(5, "Talk Show", "Stage B", "Thu", 40.0, 0, 70, true);
+        Event e1 = new Event(4, "Play", "Main Hall", "Wed", Money.ofCents(5000), 0, 80, true);
+        Event e2 = new Event(5, "Talk Show", "Stage B", "Thu", Money.ofCents(4000), 0, 70, true);
 
         manager.addToCart(user, new CartItem(e1, 2, e1.getPrice())); // Total = 100
         manager.addToCart(user, new CartItem(e2, 1, e2.getPrice())); // Total = 40
 
-        assertEquals(140.0, manager.getTotalAmount(user), 0.01, "Total amount should be correct");
+        assertEquals(Money.ofCents(14000), manager.getTotalAmount(user), "Total amount should be correct");
     }
 
     // This test ensures the cart is properly cleared for a user.
@@ -91,7 +108,7 @@ public class testcases {
         CartManager manager = CartManager.getInstance();
         String user = "clearUser";
 
-        Event e = new Event(6, "Fair", "Park", "Mon", 10.0, 0, 100, true);
+        Event e = new Event(6, "Fair", "Park", "Mon", Money.ofCents(1000), 0, 100, true);
         manager.addToCart(user, new CartItem(e, 5, e.getPrice()));
 
         manager.clearCart(user);
@@ -104,7 +121,141 @@ public class testcases {
         CartManager manager = CartManager.getInstance();
         manager.clearCart("emptyUser");
 
-        double total = manager.getTotalAmount("emptyUser");
-        assertEquals(0.0, total, 0.01);
+        Money total = manager.getTotalAmount("emptyUser");
+        assertEquals(Money.ZERO, total);
+    }
+
+    // This test checks that order ids keep increasing and that a restarted generator
+    // never hands out an id that was already issued, even if the clock goes backwards.
+    @Test
+    void testOrderIdGeneratorMonotonicAcrossRestart() {
+        long[] stored = {0};
+        OrderIdGenerator.LeaseStore store = new OrderIdGenerator.LeaseStore() {
+            public long load() { return stored[0]; }
+            public void save(long highWater) { stored[0] = highWater; }
+        };
+        long[] now = {System.currentTimeMillis()};
+
+        OrderIdGenerator first = new OrderIdGenerator(1, 1000, store, () -> now[0]);
+        long previous = 0;
+        for (int i = 0; i < 10000; i++) {
+            long id = first.nextId();
+            assertTrue(id > previous, "Ids should be strictly increasing");
+            previous = id;
+        }
+
+        now[0] -= 60_000; // clock stepped back across the restart
+        OrderIdGenerator restarted = new OrderIdGenerator(1, 1000, store, () -> now[0]);
+        assertTrue(restarted.nextId() > previous, "Restarted generator must not reuse ids");
+    }
+
+    // This test checks that a keyed diff keeps surviving rows as the same objects,
+    // updates them in place and only adds or removes what changed.
+    @Test
+    void testListDiffKeepsRowsAndAppliesChanges() {
+        Event a = new Event(1, "Concert", "Hall A", "Sat", Money.ofCents(2000), 0, 100, true);
+        Event b = new Event(2, "Play", "Hall B", "Sun", Money.ofCents(1500), 5, 50, true);
+        javafx.collections.ObservableList<Event> rows = javafx.collections.FXCollections.observableArrayList(a.copy(), b.copy());
+        Event shownA = rows.get(0);
+
+        Event freshA = new Event(1, "Concert", "Hall A", "Sat", Money.ofCents(2000), 7, 100, true);
+        Event c = new Event(3, "Opera", "Hall C", "Fri", Money.ofCents(3000), 0, 80, true);
+        ListDiff.Result result = ListDiff.apply(rows, List.of(freshA, c), Event::getId, Event::copy, Event::updateFrom);
+
+        assertEquals(new ListDiff.Result(1, 1, 1), result);
+        assertEquals(List.of(1, 3), rows.stream().map(Event::getId).toList());
+        assertSame(shownA, rows.get(0), "Surviving rows should keep their identity");
+        assertEquals(7, shownA.getSoldTickets(), "Surviving rows should be updated in place");
+    }
+
+    // This test checks that search matches word prefixes of both name and venue,
+    // that every query word must match, and that a blank query matches everything.
+    @Test
+    void testEventSearchIndexMatchesWordPrefixes() {
+        java.util.Map<Integer, Event> events = new java.util.TreeMap<>();
+        events.put(1, new Event(1, "Jazz Night with Joe", "Theatre Nova", "Mon", Money.ofCents(4500), 0, 90, true));
+        events.put(2, new Event(2, "Rock-Fest", "Nova Arena", "Sat", Money.ofCents(6000), 0, 500, true));
+        events.put(3, new Event(3, "Opera Gala", "Grand Hall", "Fri", Money.ofCents(8000), 0, 200, true));
+        EventSearchIndex index = EventSearchIndex.build(new EventCatalog.Snapshot(1, 1, 0, events));
+
+        assertEquals(java.util.BitSet.valueOf(new long[]{0b110}), index.search("NOV"));
+        assertEquals(java.util.BitSet.valueOf(new long[]{0b10}), index.search("jazz nova"));
+        assertEquals(java.util.BitSet.valueOf(new long[]{0b100}), index.search("fest"));
+        assertTrue(index.search("jazz gala").isEmpty(), "Every query word must match");
+        assertNull(index.search("  "));
+        assertTrue(index.matcher("").test(events.get(3)));
+        assertFalse(index.matcher("opera").test(events.get(1)));
+    }
+
+    // This test checks that money is parsed and summed in exact cents,
+    // and that the cart's running total follows quantity changes.
+    @Test
+    void testMoneyCentsAndRunningCartTotal() {
+        assertEquals(Money.ofCents(4550), Money.parse("45.5"));
+        assertEquals(Money.ofCents(1), Money.parse("0.005"));
+        assertEquals("-0.05", Money.ofCents(-5).toString());
+        assertEquals("$1234.07", Money.ofCents(123407).format());
+
+        Money sum = Money.ZERO;
+        for (int i = 0; i < 10; i++) {
+            sum = sum.plus(Money.parse("0.10"));
+        }
+        assertEquals(Money.ofCents(100), sum, "Ten dimes should make exactly one dollar");
+
+        CartManager manager = CartManager.getInstance();
+        String user = "runningTotalUser";
+        manager.clearCart(user);
+        Event e = new Event(7, "Gig", "Cellar", "Tue", Money.parse("12.35"), 0, 40, true);
+        manager.addToCart(user, new CartItem(e, 2, e.getPrice()));
+        manager.updateCartItemQuantity(user, 7, 5);
+        assertEquals(Money.ofCents(6175), manager.getTotalAmount(user));
+    }
+
+    // This test checks that the registry hands out one shared object per event id,
+    // and that fresh data updates that object in place instead of replacing it.
+    @Test
+    void testEventRegistrySharesOneInstancePerId() {
+        EventRegistry registry = EventRegistry.getInstance();
+        Event loaded = new Event(901, "Quiz", "Library", "Wed", Money.ofCents(500), 0, 30, true);
+        Event shared = registry.intern(loaded);
+        assertNotSame(loaded, shared, "Loaded events are copied, never registered themselves");
+        assertSame(shared, registry.intern(new Event(901, "Quiz", "Library", "Wed", Money.ofCents(500), 0, 30, true)));
+
+        Event fresh = new Event(901, "Quiz Night", "Library", "Wed", Money.ofCents(500), 4, 30, true);
+        assertSame(shared, registry.resolve(fresh));
+        assertEquals("Quiz Night", shared.getName());
+        assertEquals(26, shared.getAvailableTickets());
+        registry.forget(901);
+        assertNull(registry.get(901));
+    }
+
+    // This test runs a booking end to end on the in-memory repositories: seats, cart line, checkout,
+    // order history and sales totals, without a database.
+    @Test
+    void testInMemoryRepositoriesCheckout() throws SQLException {
+        Repositories repos = Repositories.inMemory();
+        assertTrue(repos.events().addIfAbsent("Expo", "Hall", "Sat", Money.parse("20.00"), 10));
+        assertFalse(repos.events().addIfAbsent("Expo", "Hall", "Sat", Money.parse("20.00"), 10));
+        Event event = repos.events().findAll().get(0);
+
+        assertTrue(repos.events().reserveSeats(event.getId(), 3));
+        assertFalse(repos.events().reserveSeats(event.getId(), 8), "Only 7 seats are left");
+        assertEquals(7, repos.events().availableSeats(event.getId()));
+
+        CartItem item = new CartItem(event, 3, event.getPrice());
+        repos.carts().save("memUser", CartRepository.Line.of(item));
+        assertEquals(1, repos.carts().findByUser("memUser").size());
+
+        String orderNumber = repos.orderIds().nextOrderNumber();
+        repos.orders().checkout("memUser", List.of(item), List.of(orderNumber), "2025-05-01 14:37:12");
+        assertTrue(repos.carts().findByUser("memUser").isEmpty(), "Checkout consumes the cart lines");
+        assertEquals(1, repos.orders().count("memUser"));
+        List<Order> page = repos.orders().findPage("memUser", null, OrderRepository.PAGE_SIZE);
+        assertEquals(orderNumber, page.get(0).getOrderNumber());
+
+        OrderRepository.EventSales sales = repos.orders().salesByEvent("2025-05-01 14:59:00").get(0);
+        assertEquals(3, sales.tickets());
+        assertEquals(Money.parse("60.00"), sales.revenue());
+        assertEquals(3, sales.ticketsThisHour());
     }
 }